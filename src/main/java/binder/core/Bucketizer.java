@@ -1,26 +1,234 @@
 package binder.core;
 
+import binder.io.BucketFiles;
+import binder.io.BucketReader;
+import binder.io.BucketStore;
+import binder.io.BucketWriter;
+import binder.io.ColumnarTableReader;
+import binder.io.ColumnarTableWriter;
 import binder.io.FileInputIterator;
 import binder.structures.Attribute;
 import binder.structures.AttributeCombination;
+import binder.structures.AttributeGroupIndex;
+import binder.structures.HeavyHitterCache;
 import binder.structures.Level;
+import binder.structures.MemoryManager;
+import binder.structures.OffHeapBucket;
+import binder.structures.TupleFingerprint;
+import binder.utils.BucketFormat;
 import binder.utils.CollectionUtils;
 import binder.utils.FileUtils;
+import binder.utils.HashUtils;
 import binder.utils.MeasurementUtils;
+import binder.utils.NaryKeyEncoding;
 import binder.utils.NullHandling;
+import binder.utils.SpillPolicy;
 import de.metanome.algorithm_integration.input.InputIterationException;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMaps;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 public class Bucketizer {
 
+    private static final int ROW_BATCH_SIZE = 1024; // Number of rows handed to a bucketizer thread at once if the rows of a table are split
+    private static final List<List<String>> END_OF_TABLE = new ArrayList<>(0);
+    private static final int MAX_PRE_PARTITIONS = 1 << 8; // Bounds the number of sub bucket files per bucket that the pre-partitioning may cause
+    private static final int MIN_SPILL_FRACTION = 8; // A bucket-granular spill frees at least this fraction of the memory budget, so that it does not recur with every new value
+    private static final int TUPLE_OVERHEAD = 64; // Bytes of the list and the map slot of a verified n-ary tuple, without its values
+
+    /**
+     * The table-local bookkeeping of one unary bucketizing run, which is merged into the global statistics after all tables are done.
+     */
+    private record TableBucketizing(int[] emptyBuckets, BitSet nullValueColumns) {
+    }
+
+    /**
+     * The buckets and value counters that one thread fills while it reads (a part of) the rows of one table.
+     */
+    private static final class TableScan {
+
+        private final PartialBinderAlgorithm binder;
+        private final int numTableColumns;
+        private final int startTableColumnIndex;
+        private final Object spillLock;
+        private final SpillWriter spillWriter;
+        private final MemoryManager memoryManager;
+
+        final List<List<Object2LongOpenHashMap<String>>> buckets; // null if the buckets are kept off-heap
+        final OffHeapBucket[][] offHeapBuckets; // null if the buckets are kept on the heap
+        final long[] bytesInColumn;
+        final long[] bytesInBucket; // Indexed by column number * number of buckets + bucket number; only maintained for the bucket-granular spill policy
+        final BitSet filledBuckets; // Indexed like bytesInBucket; a bucket stays filled when it is spilled, so the empty buckets do not depend on spilling
+        final long[] nulls;
+        final long[] totalValues;
+        final BitSet nullValueColumns;
+        private final HeavyHitterCache[] heavyHitters;
+
+        TableScan(PartialBinderAlgorithm binder, int numTableColumns, int startTableColumnIndex, Object spillLock, SpillWriter spillWriter) {
+            this.binder = binder;
+            this.numTableColumns = numTableColumns;
+            this.startTableColumnIndex = startTableColumnIndex;
+            this.spillLock = spillLock;
+            this.spillWriter = spillWriter;
+            this.memoryManager = getUnaryMemoryManager(binder);
+
+            this.buckets = (binder.offHeapArena == null) ? initializeBuckets(binder, numTableColumns) : null;
+            this.offHeapBuckets = (binder.offHeapArena != null) ? new OffHeapBucket[numTableColumns][] : null;
+            if (this.offHeapBuckets != null)
+                for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++)
+                    this.offHeapBuckets[columnNumber] = initializeOffHeapColumnBuckets(binder);
+            this.bytesInColumn = new long[numTableColumns];
+            this.bytesInBucket = (binder.spillPolicy == SpillPolicy.BUCKETS) ? new long[numTableColumns * binder.numBucketsPerColumn] : null;
+            this.filledBuckets = new BitSet(numTableColumns * binder.numBucketsPerColumn);
+            this.nulls = new long[numTableColumns];
+            this.totalValues = new long[numTableColumns];
+            this.nullValueColumns = new BitSet(binder.numColumns);
+
+            this.heavyHitters = (binder.heavyHitterSlots > 0) ? new HeavyHitterCache[numTableColumns] : null;
+            if (this.heavyHitters != null) {
+                for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++) {
+                    final int column = columnNumber;
+                    this.heavyHitters[columnNumber] = new HeavyHitterCache(binder.heavyHitterSlots, (value, count) -> this.addToBucket(column, value, HashUtils.hash64(value), count));
+                }
+            }
+        }
+
+        void add(List<String> values) throws IOException {
+            for (int columnNumber = 0; columnNumber < this.numTableColumns; columnNumber++) {
+                String value = values.get(columnNumber);
+
+                if (value == null) {
+                    this.nullValueColumns.set(this.startTableColumnIndex + columnNumber);
+                    this.nulls[columnNumber]++;
+                    continue;
+                }
+                if (this.binder.valueDictionary != null)
+                    value = this.binder.valueDictionary.encode(value);
+
+                // Bucketize; frequent values are counted by the heavy hitter cache and reach their buckets only in aggregated form
+                this.totalValues[columnNumber]++;
+                long hash = HashUtils.hash64(value);
+                if (this.heavyHitters != null)
+                    this.heavyHitters[columnNumber].add(value, hash);
+                else
+                    this.addToBucket(columnNumber, value, hash, 1L);
+            }
+        }
+
+        private void addToBucket(int columnNumber, String value, long hash, long count) throws IOException {
+            int bucketNumber = calculateBucketFor(hash, this.binder.numBucketsPerColumn);
+            this.filledBuckets.set(columnNumber * this.binder.numBucketsPerColumn + bucketNumber);
+            long entrySize;
+            if (this.offHeapBuckets != null)
+                entrySize = this.offHeapBuckets[columnNumber][bucketNumber].addTo(value, hash, count);
+            else
+                entrySize = (this.buckets.get(columnNumber).get(bucketNumber).addTo(value, count) == 0L) ? MemoryManager.sizeOfEntry(value) : 0;
+            if (entrySize > 0) {
+                // Account the new entry and spill if the buckets exceed the memory budget
+                this.bytesInColumn[columnNumber] = this.bytesInColumn[columnNumber] + entrySize;
+                if (this.bytesInBucket != null)
+                    this.bytesInBucket[columnNumber * this.binder.numBucketsPerColumn + bucketNumber] += entrySize;
+                if (this.memoryManager.reserve(entrySize)) {
+                    synchronized (this.spillLock) {
+                        if (this.bytesInBucket != null)
+                            spillLargestBuckets(this.binder, this.spillWriter, this, this.bytesInColumn, this.bytesInBucket);
+                        else
+                            spillTillMemoryUnderThreshold(this.spillWriter, this.numTableColumns, this, this.bytesInColumn);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Moves the counts of the heavy hitter caches into the buckets; must be called after the last row.
+         */
+        void finish() throws IOException {
+            if (this.heavyHitters != null)
+                for (HeavyHitterCache heavyHitterCache : this.heavyHitters)
+                    heavyHitterCache.flush();
+        }
+
+        /**
+         * @return true if the bucket has not received any value, neither in memory nor in its spilled runs
+         */
+        boolean isBucketEmpty(int columnNumber, int bucketNumber) {
+            return !this.filledBuckets.get(columnNumber * this.binder.numBucketsPerColumn + bucketNumber);
+        }
+
+        /**
+         * Replaces the given buckets of a column with empty ones and returns the write of the replaced buckets, which also releases their
+         * off-heap memory.
+         *
+         * @param bucketNumbers the numbers of the buckets to replace or null for all buckets of the column
+         */
+        SpillWriter.BucketWrite detachBuckets(int columnNumber, BitSet bucketNumbers) {
+            int globalColumnIndex = this.startTableColumnIndex + columnNumber;
+            int numBuckets = this.binder.numBucketsPerColumn;
+
+            if (this.offHeapBuckets != null) {
+                OffHeapBucket[] detachedBuckets = new OffHeapBucket[numBuckets];
+                for (int bucketNumber = 0; bucketNumber < numBuckets; bucketNumber++) {
+                    if ((bucketNumbers != null) && !bucketNumbers.get(bucketNumber))
+                        continue;
+                    detachedBuckets[bucketNumber] = this.offHeapBuckets[columnNumber][bucketNumber];
+                    this.offHeapBuckets[columnNumber][bucketNumber] = new OffHeapBucket(this.binder.offHeapArena);
+                }
+                return () -> writeOffHeapBuckets(this.binder, globalColumnIndex, detachedBuckets);
+            }
+
+            List<Object2LongOpenHashMap<String>> detachedBuckets;
+            if (bucketNumbers == null) {
+                detachedBuckets = this.buckets.set(columnNumber, initializeColumnBuckets(this.binder));
+            } else {
+                // Buckets that are not detached stay null and are skipped by the writer
+                detachedBuckets = new ArrayList<>(Collections.nCopies(numBuckets, null));
+                for (int bucketNumber = bucketNumbers.nextSetBit(0); bucketNumber >= 0; bucketNumber = bucketNumbers.nextSetBit(bucketNumber + 1))
+                    detachedBuckets.set(bucketNumber, this.buckets.get(columnNumber).set(bucketNumber, new Object2LongOpenHashMap<>()));
+            }
+            return () -> writeBuckets(this.binder, globalColumnIndex, -1, detachedBuckets);
+        }
+
+        void merge(TableScan other) {
+            for (int columnNumber = 0; columnNumber < this.numTableColumns; columnNumber++) {
+                for (int bucketNumber = 0; bucketNumber < this.binder.numBucketsPerColumn; bucketNumber++) {
+                    if (this.offHeapBuckets != null) {
+                        OffHeapBucket bucket = this.offHeapBuckets[columnNumber][bucketNumber];
+                        OffHeapBucket otherBucket = other.offHeapBuckets[columnNumber][bucketNumber];
+                        for (Object2LongMap.Entry<String> entry : Object2LongMaps.fastIterable(otherBucket.toMap()))
+                            bucket.addTo(entry.getKey(), HashUtils.hash64(entry.getKey()), entry.getLongValue());
+                        otherBucket.release();
+                        continue;
+                    }
+                    Object2LongOpenHashMap<String> bucket = this.buckets.get(columnNumber).get(bucketNumber);
+                    for (Object2LongMap.Entry<String> entry : Object2LongMaps.fastIterable(other.buckets.get(columnNumber).get(bucketNumber)))
+                        bucket.addTo(entry.getKey(), entry.getLongValue());
+                }
+                this.bytesInColumn[columnNumber] += other.bytesInColumn[columnNumber];
+                if (this.bytesInBucket != null)
+                    for (int bucketNumber = 0; bucketNumber < this.binder.numBucketsPerColumn; bucketNumber++)
+                        this.bytesInBucket[columnNumber * this.binder.numBucketsPerColumn + bucketNumber] +=
+                                other.bytesInBucket[columnNumber * this.binder.numBucketsPerColumn + bucketNumber];
+                this.nulls[columnNumber] += other.nulls[columnNumber];
+                this.totalValues[columnNumber] += other.totalValues[columnNumber];
+            }
+            this.nullValueColumns.or(other.nullValueColumns);
+            this.filledBuckets.or(other.filledBuckets);
+        }
+    }
+
     /**
      * Unary Bucketizing
      *
@@ -32,74 +240,250 @@ public class Bucketizer {
         Attribute[] unaryAttributes = new Attribute[binder.numColumns];
         int[] emptyBuckets = getEmptyBuckets(binder);
 
-        for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++) {
-            String tableName = binder.tableNames[tableIndex];
+        List<TableBucketizing> results = new ArrayList<>(binder.tableNames.length);
+        if ((binder.numBucketizerThreads <= 1) || binder.intraTableParallelism || (binder.tableNames.length <= 1)) {
+            for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++)
+                results.add(bucketizeTable(binder, tableIndex, unaryAttributes));
+        } else {
+            // Scan and bucketize several tables at once; each worker owns the buckets of the table it processes. The workers share the memory budget,
+            // so which tables spill depends on timing, but the empty buckets, and hence the comparison order, do not
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(binder.numBucketizerThreads, binder.tableNames.length));
+            try {
+                List<Future<TableBucketizing>> futures = new ArrayList<>(binder.tableNames.length);
+                for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++) {
+                    final int table = tableIndex;
+                    futures.add(executor.submit(() -> bucketizeTable(binder, table, unaryAttributes)));
+                }
+                for (Future<TableBucketizing> future : futures)
+                    results.add(awaitResult(future));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
 
-            // get the index where the columns start
-            int startTableColumnIndex = binder.tableColumnStartIndexes[tableIndex];
-            // get the number of columns belonging to the given table
-            int numTableColumns = (binder.tableColumnStartIndexes.length > tableIndex + 1) ? binder.tableColumnStartIndexes[tableIndex + 1] - startTableColumnIndex :
-                    binder.numColumns - startTableColumnIndex;
+        // Merge the per-table bookkeeping in table order so that the result does not depend on the order in which the workers finished
+        for (TableBucketizing result : results) {
+            for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
+                emptyBuckets[bucketNumber] = emptyBuckets[bucketNumber] + result.emptyBuckets()[bucketNumber];
+            binder.nullValueColumns.or(result.nullValueColumns());
+        }
 
-            // init empty attributes for the current table
-            for (int i = startTableColumnIndex; i < startTableColumnIndex + numTableColumns; i++) {
-                unaryAttributes[i] = new Attribute(tableIndex, i - startTableColumnIndex, i);
-            }
+        // Calculate the bucket comparison order from the emptyBuckets to minimize the influence of sparse-attribute-issue
+        calculateBucketComparisonOrder(emptyBuckets, binder.numBucketsPerColumn, binder.numColumns, binder);
 
-            //logger.debug("(" + (tableIndex + 1) + "/" + (binder.tableNames.length) + ") Building unary buckets for " + tableName + " [" + numTableColumns + "]");
+        // All off-heap buckets are on disk now, so the pooled direct memory is no longer needed by the validation and the n-ary levels
+        if (binder.offHeapArena != null) {
+            binder.offHeapArena.clear();
+            binder.offHeapArena = null;
+            binder.offHeapMemoryManager = null;
+        }
+    }
 
-            // Initialize buckets
-            List<List<Map<String, Long>>> buckets = initializeBuckets(binder, numTableColumns);
+    /**
+     * @return the budget of the unary buckets, which is the direct memory budget if they are kept off-heap
+     */
+    private static MemoryManager getUnaryMemoryManager(PartialBinderAlgorithm binder) {
+        return (binder.offHeapArena != null) ? binder.offHeapMemoryManager : binder.memoryManager;
+    }
 
-            // Initialize value counters
-            int numValuesSinceLastMemoryCheck = 0;
-            int[] numValuesInColumn = new int[binder.numColumns];
+    /**
+     * Reads one table and writes the buckets of all its columns to disk. The method touches only table-local state and the binder's per-column
+     * counters of this table, so that different tables can be bucketized concurrently.
+     *
+     * @param binder          The BINDER object which should be bucketized
+     * @param tableIndex      the index of the table to bucketize
+     * @param unaryAttributes the attribute statistics of all columns
+     * @return the empty bucket counts and null value columns of the table
+     * @throws IOException if something goes wrong during file handling
+     */
+    private static TableBucketizing bucketizeTable(PartialBinderAlgorithm binder, int tableIndex, Attribute[] unaryAttributes) throws IOException {
+        String tableName = binder.tableNames[tableIndex];
+        int[] emptyBuckets = new int[binder.numBucketsPerColumn];
+        BitSet nullValueColumns = new BitSet(binder.numColumns);
 
-            // Load data for the current table
-            FileInputIterator inputIterator = null;
-            try {
-                inputIterator = new FileInputIterator(tableName, binder.fileInputGenerator[tableIndex], binder.inputRowLimit);
-                long rowCount = 0;
-
-                while (inputIterator.next()) {
-                    rowCount++;
-                    for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++) {
-                        String value = inputIterator.getValue(columnNumber);
-
-                        if (value == null) {
-                            binder.nullValueColumns.set(startTableColumnIndex + columnNumber);
-                            unaryAttributes[startTableColumnIndex + columnNumber].nulls++;
-                            continue;
-                        }
-                        // Bucketize
-                        unaryAttributes[startTableColumnIndex + columnNumber].totalValues++;
-                        int bucketNumber = calculateBucketFor(value, binder.numBucketsPerColumn);
-                        if (1L == buckets.get(columnNumber).get(bucketNumber).compute(value, (key, amount) -> amount == null ? 1L : 1L + amount)) {
-                            numValuesSinceLastMemoryCheck++;
-                            numValuesInColumn[columnNumber] = numValuesInColumn[columnNumber] + 1;
-                            // Occasionally check the memory consumption
-                            if (numValuesSinceLastMemoryCheck >= binder.memoryCheckFrequency) {
-                                numValuesSinceLastMemoryCheck = 0;
-
-                                spillTillMemoryUnderThreshold(binder, numTableColumns, startTableColumnIndex, buckets, numValuesInColumn);
-                            }
-                        }
-                    }
+        // get the index where the columns start
+        int startTableColumnIndex = binder.tableColumnStartIndexes[tableIndex];
+        // get the number of columns belonging to the given table
+        int numTableColumns = getNumTableColumns(binder, tableIndex);
+
+        // init empty attributes for the current table
+        for (int i = startTableColumnIndex; i < startTableColumnIndex + numTableColumns; i++) {
+            unaryAttributes[i] = new Attribute(tableIndex, i - startTableColumnIndex, i);
+        }
+
+        //logger.debug("(" + (tableIndex + 1) + "/" + (binder.tableNames.length) + ") Building unary buckets for " + tableName + " [" + numTableColumns + "]");
+
+        // Load the data of the current table into buckets, either on this thread or with its rows split across the bucketizer threads
+        TableScan scan;
+        try (SpillWriter spillWriter = new SpillWriter(binder, getUnaryMemoryManager(binder))) {
+            if (binder.intraTableParallelism && (binder.numBucketizerThreads > 1))
+                scan = scanTableInParallel(binder, spillWriter, tableIndex, numTableColumns, startTableColumnIndex);
+            else
+                scan = scanTable(binder, spillWriter, tableIndex, numTableColumns, startTableColumnIndex);
+        }
+
+        for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++) {
+            unaryAttributes[startTableColumnIndex + columnNumber].nulls += scan.nulls[columnNumber];
+            unaryAttributes[startTableColumnIndex + columnNumber].totalValues += scan.totalValues[columnNumber];
+        }
+
+        // Write buckets to disk
+        toDisk(binder, emptyBuckets, numTableColumns, scan);
+        for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++)
+            scan.memoryManager.release(scan.bytesInColumn[columnNumber]);
+
+        return new TableBucketizing(emptyBuckets, scan.nullValueColumns);
+    }
+
+    private static TableScan scanTable(PartialBinderAlgorithm binder, SpillWriter spillWriter, int tableIndex, int numTableColumns, int startTableColumnIndex) throws IOException {
+        TableScan scan = new TableScan(binder, numTableColumns, startTableColumnIndex, new Object(), spillWriter);
+
+        FileInputIterator inputIterator = null;
+        ColumnarTableWriter columnWriter = null;
+        try {
+            inputIterator = new FileInputIterator(binder.tableNames[tableIndex], binder.fileInputGenerator[tableIndex], binder.inputRowLimit, binder.bucketFormat == BucketFormat.TEXT);
+            columnWriter = buildColumnarTableWriter(binder, tableIndex, numTableColumns);
+            long rowCount = 0;
+
+            while (inputIterator.next()) {
+                rowCount++;
+                scan.add(inputIterator.getValues());
+                if (columnWriter != null) columnWriter.write(inputIterator.getValues());
+            }
+            scan.finish();
+            binder.tableSizes[tableIndex] = rowCount;
+        } catch (InputIterationException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (inputIterator != null) inputIterator.close();
+            if (columnWriter != null) columnWriter.close();
+        }
+        return scan;
+    }
+
+    /**
+     * Reads the table on the calling thread and hands its rows in batches to the bucketizer threads. Every worker fills its own partitions,
+     * which are merged bucket by bucket once the table has been read completely.
+     */
+    private static TableScan scanTableInParallel(PartialBinderAlgorithm binder, SpillWriter spillWriter, int tableIndex, int numTableColumns, int startTableColumnIndex) throws IOException {
+        int numWorkers = binder.numBucketizerThreads;
+        // Spills of different workers add runs to the same buckets, so they must not interleave
+        Object spillLock = new Object();
+        BlockingQueue<List<List<String>>> batches = new ArrayBlockingQueue<>(2 * numWorkers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+        FileInputIterator inputIterator = null;
+        ColumnarTableWriter columnWriter = null;
+        try {
+            List<Future<TableScan>> workers = new ArrayList<>(numWorkers);
+            for (int worker = 0; worker < numWorkers; worker++) {
+                workers.add(executor.submit(() -> {
+                    TableScan scan = new TableScan(binder, numTableColumns, startTableColumnIndex, spillLock, spillWriter);
+                    for (List<List<String>> batch = batches.take(); batch != END_OF_TABLE; batch = batches.take())
+                        for (List<String> row : batch)
+                            scan.add(row);
+                    scan.finish();
+                    return scan;
+                }));
+            }
+
+            inputIterator = new FileInputIterator(binder.tableNames[tableIndex], binder.fileInputGenerator[tableIndex], binder.inputRowLimit, binder.bucketFormat == BucketFormat.TEXT);
+            // The columnar copy is written on the reading thread, because its rows must keep the order of the input
+            columnWriter = buildColumnarTableWriter(binder, tableIndex, numTableColumns);
+            long rowCount = 0;
+
+            List<List<String>> batch = new ArrayList<>(ROW_BATCH_SIZE);
+            while (inputIterator.next()) {
+                rowCount++;
+                batch.add(inputIterator.getValues());
+                if (columnWriter != null) columnWriter.write(inputIterator.getValues());
+                if (batch.size() == ROW_BATCH_SIZE) {
+                    handOver(batches, batch, workers);
+                    batch = new ArrayList<>(ROW_BATCH_SIZE);
                 }
-                binder.tableSizes[tableIndex] = rowCount;
-            } catch (InputIterationException e) {
-                throw new RuntimeException(e);
-            } finally {
-                if (inputIterator != null) inputIterator.close();
             }
+            if (!batch.isEmpty())
+                handOver(batches, batch, workers);
+            for (int worker = 0; worker < numWorkers; worker++)
+                handOver(batches, END_OF_TABLE, workers);
+            binder.tableSizes[tableIndex] = rowCount;
+
+            // Merge the partitions of all workers into the partitions of the first worker
+            TableScan scan = awaitResult(workers.get(0));
+            for (int worker = 1; worker < numWorkers; worker++)
+                scan.merge(awaitResult(workers.get(worker)));
+            return scan;
+        } catch (InputIterationException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+            if (inputIterator != null) inputIterator.close();
+            if (columnWriter != null) columnWriter.close();
+        }
+    }
 
-            // Write buckets to disk
-            toDisk(binder, emptyBuckets, numTableColumns, startTableColumnIndex, buckets);
+    /**
+     * @return a writer for the columnar copy of the table, or null if the n-ary levels read the input files again
+     */
+    private static ColumnarTableWriter buildColumnarTableWriter(PartialBinderAlgorithm binder, int tableIndex, int numTableColumns) throws IOException {
+        if (binder.columnarCacheFolder == null)
+            return null;
+        return new ColumnarTableWriter(new File(binder.columnarCacheFolder, String.valueOf(tableIndex)), numTableColumns, binder.valueDictionary);
+    }
+
+    private static int getNumTableColumns(PartialBinderAlgorithm binder, int tableIndex) {
+        int startTableColumnIndex = binder.tableColumnStartIndexes[tableIndex];
+        return (binder.tableColumnStartIndexes.length > tableIndex + 1) ? binder.tableColumnStartIndexes[tableIndex + 1] - startTableColumnIndex :
+                binder.numColumns - startTableColumnIndex;
+    }
+
+    private static void handOver(BlockingQueue<List<List<String>>> batches, List<List<String>> batch, List<? extends Future<?>> workers) throws IOException {
+        try {
+            while (!batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                // A failed worker stops taking rows, so surface its exception instead of waiting forever
+                for (Future<?> worker : workers)
+                    if (worker.isDone()) awaitResult(worker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while handing rows to the bucketizing workers", e);
         }
+    }
 
-        // Calculate the bucket comparison order from the emptyBuckets to minimize the influence of sparse-attribute-issue
-        calculateBucketComparisonOrder(emptyBuckets, binder.numBucketsPerColumn, binder.numColumns, binder);
+    /**
+     * Waits for all futures, even if some of them fail, and rethrows the first failure afterwards.
+     */
+    static void awaitAll(List<? extends Future<?>> futures) throws IOException {
+        IOException ioException = null;
+        RuntimeException runtimeException = null;
+        for (Future<?> future : futures) {
+            try {
+                awaitResult(future);
+            } catch (IOException e) {
+                ioException = (ioException == null) ? e : ioException;
+            } catch (RuntimeException e) {
+                runtimeException = (runtimeException == null) ? e : runtimeException;
+            }
+        }
+        if (ioException != null)
+            throw ioException;
+        if (runtimeException != null)
+            throw runtimeException;
+    }
 
+    private static <T> T awaitResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a worker", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException)
+                throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     /**
@@ -121,6 +505,13 @@ public class Bucketizer {
 
         int[] emptyBuckets = new int[binder.numBucketsPerColumn];
 
+        binder.numPrePartitions = binder.prePartitioning ? estimateNumNaryPrePartitions(binder, attributeCombinations) : 1;
+
+        // Fingerprinted tuples are compared by their fingerprints only; the verification compares every tuple with the tuple that created the bucket
+        // entry of its fingerprint, so the components are kept and accounted only as long as their entries stay in memory
+        TupleFingerprint fingerprint = (binder.naryKeyEncoding == NaryKeyEncoding.CONCATENATED) ? null : new TupleFingerprint();
+        boolean verified = binder.naryKeyEncoding == NaryKeyEncoding.VERIFIED_FINGERPRINT;
+
         for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++) {
             int numTableAttributeCombinations = table2attributeCombinationNumbers.get(tableIndex).size();
             int startTableColumnIndex = binder.tableColumnStartIndexes[tableIndex];
@@ -133,109 +524,136 @@ public class Bucketizer {
             }
 
             // Initialize buckets
-            Int2ObjectOpenHashMap<List<Map<String, Long>>> buckets = new Int2ObjectOpenHashMap<>(numTableAttributeCombinations);
+            Int2ObjectOpenHashMap<List<Object2LongOpenHashMap<String>>> buckets = new Int2ObjectOpenHashMap<>(numTableAttributeCombinations);
             for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex)) {
-                List<Map<String, Long>> attributeCombinationBuckets = new ArrayList<>();
+                List<Object2LongOpenHashMap<String>> attributeCombinationBuckets = new ArrayList<>();
                 for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
-                    attributeCombinationBuckets.add(new HashMap<>());
+                    attributeCombinationBuckets.add(new Object2LongOpenHashMap<>());
                 buckets.put(attributeCombinationNumber, attributeCombinationBuckets);
             }
 
-            // Initialize value counters
-            int numValuesSinceLastMemoryCheck = 0;
-            int[] numValuesInAttributeCombination = new int[attributeCombinations.size()];
-            for (int attributeCombinationNumber = 0; attributeCombinationNumber < attributeCombinations.size(); attributeCombinationNumber++)
-                numValuesInAttributeCombination[attributeCombinationNumber] = 0;
-
-            // Load data
-            FileInputIterator inputIterator = new FileInputIterator(binder.tableNames[tableIndex], binder.fileInputGenerator[tableIndex], binder.inputRowLimit);
-
-            while (inputIterator.next()) {
-                List<String> values = inputIterator.getValues();
-
-                for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex)) {
-                    AttributeCombination attributeCombination = attributeCombinations.get(attributeCombinationNumber);
-
-                    boolean anyNull = false;
-                    List<String> attributeCombinationValues = new ArrayList<>(attributeCombination.getAttributes().length);
-                    for (int attribute : attributeCombination.getAttributes()) {
-                        String attributeValue = values.get(attribute - startTableColumnIndex);
-                        anyNull = (attributeValue == null);
-                        if (anyNull) break;
-                        attributeCombinationValues.add(attributeValue);
-                    }
-                    if (anyNull) {
-                        attributeCombination.nulls++;
-                        if (binder.nullHandling == NullHandling.SUBSET) {
-                            continue;
-                        }
+            // The components of the fingerprints that the in-memory buckets of each attribute combination hold
+            Int2ObjectOpenHashMap<Object2ObjectOpenHashMap<String, List<String>>> verifiedTuples = verified ? new Int2ObjectOpenHashMap<>() : null;
+            if (verified)
+                for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex))
+                    verifiedTuples.put(attributeCombinationNumber, new Object2ObjectOpenHashMap<>());
+
+            // Initialize the memory accounting of the buckets
+            long[] bytesInAttributeCombination = new long[attributeCombinations.size()];
+
+            // Load data, preferably from the columnar copy of the table, which provides only the relevant columns and holds their values already encoded
+            try (SpillWriter spillWriter = new SpillWriter(binder)) {
+                boolean cached = binder.columnarCacheFolder != null;
+                FileInputIterator inputIterator = null;
+                ColumnarTableReader columnReader = null;
+                try {
+                    if (cached) {
+                        BitSet relevantColumns = new BitSet();
+                        for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex))
+                            for (int attribute : attributeCombinations.get(attributeCombinationNumber).getAttributes())
+                                relevantColumns.set(attribute - startTableColumnIndex);
+                        columnReader = new ColumnarTableReader(new File(binder.columnarCacheFolder, String.valueOf(tableIndex)), getNumTableColumns(binder, tableIndex),
+                                relevantColumns.stream().toArray());
+                    } else {
+                        inputIterator = new FileInputIterator(binder.tableNames[tableIndex], binder.fileInputGenerator[tableIndex], binder.inputRowLimit, binder.bucketFormat == BucketFormat.TEXT);
                     }
 
-                    String valueSeparator = "#";
-                    String value = CollectionUtils.concat(attributeCombinationValues, valueSeparator);
-
-                    // Bucketize
-                    int bucketNumber = Bucketizer.calculateBucketFor(value, binder.numBucketsPerColumn);
-                    long amount = buckets.get(attributeCombinationNumber).get(bucketNumber).getOrDefault(value, 0L);
-                    if (amount == 0) {
-                        numValuesSinceLastMemoryCheck++;
-                        numValuesInAttributeCombination[attributeCombinationNumber] = numValuesInAttributeCombination[attributeCombinationNumber] + 1;
-                    }
-                    buckets.get(attributeCombinationNumber).get(bucketNumber).put(value, ++amount);
-
-                    // Occasionally check the memory consumption
-                    if (numValuesSinceLastMemoryCheck >= binder.memoryCheckFrequency) {
-                        numValuesSinceLastMemoryCheck = 0;
-
-                        // Spill to disk if necessary
-                        while (ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() > binder.maxMemoryUsage) {
-                            // Identify largest buffer
-                            int largestAttributeCombinationNumber = 0;
-                            int largestAttributeCombinationSize = numValuesInAttributeCombination[largestAttributeCombinationNumber];
-                            for (int otherAttributeCombinationNumber = 1; otherAttributeCombinationNumber < numValuesInAttributeCombination.length; otherAttributeCombinationNumber++) {
-                                if (largestAttributeCombinationSize < numValuesInAttributeCombination[otherAttributeCombinationNumber]) {
-                                    largestAttributeCombinationNumber = otherAttributeCombinationNumber;
-                                    largestAttributeCombinationSize = numValuesInAttributeCombination[otherAttributeCombinationNumber];
+                    while (cached ? columnReader.next() : inputIterator.next()) {
+                        List<String> values = cached ? columnReader.getValues() : inputIterator.getValues();
+
+                        for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex)) {
+                            AttributeCombination attributeCombination = attributeCombinations.get(attributeCombinationNumber);
+
+                            boolean anyNull = false;
+                            // The component values are only collected if they are concatenated or verified
+                            List<String> attributeCombinationValues = ((fingerprint == null) || verified) ?
+                                    new ArrayList<>(attributeCombination.getAttributes().length) : null;
+                            if (fingerprint != null) fingerprint.reset();
+                            for (int attribute : attributeCombination.getAttributes()) {
+                                String attributeValue = values.get(attribute - startTableColumnIndex);
+                                anyNull = (attributeValue == null);
+                                if (anyNull) break;
+                                if ((binder.valueDictionary != null) && !cached)
+                                    attributeValue = binder.valueDictionary.encode(attributeValue);
+                                if (fingerprint != null) fingerprint.add(attributeValue);
+                                if (attributeCombinationValues != null) attributeCombinationValues.add(attributeValue);
+                            }
+                            if (anyNull) {
+                                attributeCombination.nulls++;
+                                if (binder.nullHandling == NullHandling.SUBSET) {
+                                    continue;
                                 }
                             }
 
-                            // Write buckets from the largest column to disk and empty written buckets
-                            for (int largeBucketNumber = 0; largeBucketNumber < binder.numBucketsPerColumn; largeBucketNumber++) {
-                                writeBucket(binder.tempFolder, naryOffset + largestAttributeCombinationNumber, largeBucketNumber, -1,
-                                        buckets.get(largestAttributeCombinationNumber).get(largeBucketNumber), binder.columnSizes);
-                                buckets.get(largestAttributeCombinationNumber).set(largeBucketNumber, new HashMap<>());
+                            String value;
+                            if (fingerprint == null) {
+                                String valueSeparator = "#";
+                                value = CollectionUtils.concat(attributeCombinationValues, valueSeparator);
+                            } else {
+                                value = fingerprint.toKey();
                             }
 
-                            numValuesInAttributeCombination[largestAttributeCombinationNumber] = 0;
-
-                            narySpillCounts[largestAttributeCombinationNumber] = narySpillCounts[largestAttributeCombinationNumber] + 1;
-
-                            System.gc();
+                            // Bucketize
+                            int bucketNumber = Bucketizer.calculateBucketFor(value, binder.numBucketsPerColumn);
+                            if (buckets.get(attributeCombinationNumber).get(bucketNumber).addTo(value, 1L) != 0L) {
+                                if (verified)
+                                    verifyFingerprint(verifiedTuples.get(attributeCombinationNumber), value, attributeCombinationValues);
+                            } else {
+                                long entrySize = MemoryManager.sizeOfEntry(value);
+                                if (verified) {
+                                    verifiedTuples.get(attributeCombinationNumber).put(value, attributeCombinationValues);
+                                    entrySize = entrySize + sizeOfTuple(attributeCombinationValues);
+                                }
+                                bytesInAttributeCombination[attributeCombinationNumber] = bytesInAttributeCombination[attributeCombinationNumber] + entrySize;
+
+                                // Spill to disk if necessary
+                                if (binder.memoryManager.reserve(entrySize)) {
+                                    while (spillWriter.isBudgetExceeded()) {
+                                        // Identify largest buffer
+                                        int largestAttributeCombinationNumber = 0;
+                                        long largestAttributeCombinationSize = bytesInAttributeCombination[largestAttributeCombinationNumber];
+                                        for (int otherAttributeCombinationNumber = 1; otherAttributeCombinationNumber < bytesInAttributeCombination.length; otherAttributeCombinationNumber++) {
+                                            if (largestAttributeCombinationSize < bytesInAttributeCombination[otherAttributeCombinationNumber]) {
+                                                largestAttributeCombinationNumber = otherAttributeCombinationNumber;
+                                                largestAttributeCombinationSize = bytesInAttributeCombination[otherAttributeCombinationNumber];
+                                            }
+                                        }
+                                        if (largestAttributeCombinationSize == 0)
+                                            break;
+
+                                        // Write buckets from the largest attribute combination to disk and continue with empty buckets
+                                        int spilledAttributeCombinationIndex = naryOffset + largestAttributeCombinationNumber;
+                                        List<Object2LongOpenHashMap<String>> spilledBuckets = buckets.put(largestAttributeCombinationNumber, initializeColumnBuckets(binder));
+                                        if (verified)
+                                            verifiedTuples.put(largestAttributeCombinationNumber, new Object2ObjectOpenHashMap<>());
+                                        spillWriter.spill(largestAttributeCombinationSize, () -> writeBuckets(binder, spilledAttributeCombinationIndex, -1, spilledBuckets));
+
+                                        bytesInAttributeCombination[largestAttributeCombinationNumber] = 0;
+
+                                        narySpillCounts[largestAttributeCombinationNumber] = narySpillCounts[largestAttributeCombinationNumber] + 1;
+                                    }
+                                }
+                            }
                         }
                     }
+                } finally {
+                    if (columnReader != null) columnReader.close();
+                    if (inputIterator != null) inputIterator.close();
                 }
             }
-            inputIterator.close();
 
 
             // Write buckets to disk
             for (int attributeCombinationNumber : table2attributeCombinationNumbers.get(tableIndex)) {
+                List<Object2LongOpenHashMap<String>> attributeCombinationBuckets = buckets.get(attributeCombinationNumber);
                 if (narySpillCounts[attributeCombinationNumber] == 0) { // if an attribute combination was spilled to disk, we do not count empty buckets for this attribute
                     // combination, because the partitioning distributes the values evenly and hence all buckets should have been populated
-                    for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++) {
-                        Map<String, Long> bucket = buckets.get(attributeCombinationNumber).get(bucketNumber);
-                        if (bucket.size() != 0)
-                            Bucketizer.writeBucket(binder.tempFolder, naryOffset + attributeCombinationNumber, bucketNumber, -1, bucket, binder.columnSizes);
-                        else
+                    for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
+                        if (attributeCombinationBuckets.get(bucketNumber).isEmpty())
                             emptyBuckets[bucketNumber] = emptyBuckets[bucketNumber] + 1;
-                    }
-                } else {
-                    for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++) {
-                        Map<String, Long> bucket = buckets.get(attributeCombinationNumber).get(bucketNumber);
-                        if (bucket.size() != 0)
-                            Bucketizer.writeBucket(binder.tempFolder, naryOffset + attributeCombinationNumber, bucketNumber, -1, bucket, binder.columnSizes);
-                    }
                 }
+                writeBuckets(binder, naryOffset + attributeCombinationNumber, -1, attributeCombinationBuckets);
+                binder.memoryManager.release(bytesInAttributeCombination[attributeCombinationNumber]);
             }
         }
 
@@ -244,17 +662,59 @@ public class Bucketizer {
     }
 
 
-    private static List<List<Map<String, Long>>> initializeBuckets(PartialBinderAlgorithm binder, int numTableColumns) {
-        List<List<Map<String, Long>>> buckets = new ArrayList<>(numTableColumns);
-        for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++) {
-            List<Map<String, Long>> attributeBuckets = new ArrayList<>();
-            for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
-                attributeBuckets.add(new HashMap<>());
-            buckets.add(attributeBuckets);
-        }
+    /**
+     * Estimates the number of sub buckets into which the validation would refine the bucket levels of the given attribute combinations. The size of
+     * an attribute combination is unknown before it is bucketized, but it is at most the sum of the sizes of its attributes.
+     */
+    private static int estimateNumNaryPrePartitions(PartialBinderAlgorithm binder, List<AttributeCombination> attributeCombinations) {
+        double levelSize = 0;
+        for (AttributeCombination attributeCombination : attributeCombinations)
+            for (int attribute : attributeCombination.getAttributes())
+                levelSize = levelSize + (double) binder.columnSizes.get(attribute) / binder.numBucketsPerColumn;
+        return calculateNumPrePartitions(binder, levelSize);
+    }
+
+    // Leaves half of the memory for estimation errors, like the adaptive number of buckets does
+    static int calculateNumPrePartitions(PartialBinderAlgorithm binder, double levelSize) {
+        return (int) Math.min(MAX_PRE_PARTITIONS, (long) (levelSize / Math.max(1, binder.maxMemoryUsage / 2)) + 1);
+    }
+
+    private static void verifyFingerprint(Object2ObjectOpenHashMap<String, List<String>> verifiedTuples, String fingerprint, List<String> tuple) {
+        List<String> verifiedTuple = verifiedTuples.get(fingerprint);
+        if ((verifiedTuple != null) && !verifiedTuple.equals(tuple))
+            throw new IllegalStateException("The n-ary tuples " + verifiedTuple + " and " + tuple + " have the same fingerprint; use " +
+                    NaryKeyEncoding.CONCATENATED + " keys for this input");
+    }
+
+    // The components of a verified tuple are held in addition to its bucket entry: a list, its slot in the verification map and the values
+    private static long sizeOfTuple(List<String> tuple) {
+        long size = TUPLE_OVERHEAD;
+        for (String value : tuple)
+            size = size + MeasurementUtils.sizeOf64(value) + Long.BYTES;
+        return size;
+    }
+
+    private static List<List<Object2LongOpenHashMap<String>>> initializeBuckets(PartialBinderAlgorithm binder, int numTableColumns) {
+        List<List<Object2LongOpenHashMap<String>>> buckets = new ArrayList<>(numTableColumns);
+        for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++)
+            buckets.add(initializeColumnBuckets(binder));
         return buckets;
     }
 
+    private static List<Object2LongOpenHashMap<String>> initializeColumnBuckets(PartialBinderAlgorithm binder) {
+        List<Object2LongOpenHashMap<String>> attributeBuckets = new ArrayList<>(binder.numBucketsPerColumn);
+        for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
+            attributeBuckets.add(new Object2LongOpenHashMap<>());
+        return attributeBuckets;
+    }
+
+    private static OffHeapBucket[] initializeOffHeapColumnBuckets(PartialBinderAlgorithm binder) {
+        OffHeapBucket[] attributeBuckets = new OffHeapBucket[binder.numBucketsPerColumn];
+        for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
+            attributeBuckets[bucketNumber] = new OffHeapBucket(binder.offHeapArena);
+        return attributeBuckets;
+    }
+
     private static int[] getEmptyBuckets(PartialBinderAlgorithm binder) {
         // Initialize the counters that count the empty buckets per bucket level to identify sparse buckets and promising bucket levels for comparison
         int[] emptyBuckets = new int[binder.numBucketsPerColumn];
@@ -268,61 +728,100 @@ public class Bucketizer {
         return emptyBuckets;
     }
 
-    private static void spillTillMemoryUnderThreshold(PartialBinderAlgorithm binder, int numTableColumns, int startTableColumnIndex, List<List<Map<String, Long>>> buckets,
-                                                      int[] numValuesInColumn) throws IOException {
-        // Spill to disk if necessary
-        while (ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() > binder.maxMemoryUsage) {
+    private static void spillTillMemoryUnderThreshold(SpillWriter spillWriter, int numTableColumns, TableScan scan, long[] bytesInColumn) throws IOException {
+        // Spill to disk if necessary; if this table's buckets are all written, the buckets of other tables must make room when they grow next
+        while (spillWriter.isBudgetExceeded()) {
             // Identify largest buffer
             int largestColumnNumber = 0;
-            int largestColumnSize = numValuesInColumn[largestColumnNumber];
+            long largestColumnSize = bytesInColumn[largestColumnNumber];
             for (int otherColumnNumber = 1; otherColumnNumber < numTableColumns; otherColumnNumber++) {
-                if (largestColumnSize < numValuesInColumn[otherColumnNumber]) {
+                if (largestColumnSize < bytesInColumn[otherColumnNumber]) {
                     largestColumnNumber = otherColumnNumber;
-                    largestColumnSize = numValuesInColumn[otherColumnNumber];
+                    largestColumnSize = bytesInColumn[otherColumnNumber];
                 }
             }
+            if (largestColumnSize == 0)
+                break;
+
+            // Write buckets from the largest column to disk and continue with empty buckets
+            int globalLargestColumnIndex = scan.startTableColumnIndex + largestColumnNumber;
+            spillWriter.spill(largestColumnSize, scan.detachBuckets(largestColumnNumber, null));
+            bytesInColumn[largestColumnNumber] = 0;
 
-            // Write buckets from the largest column to disk and empty written buckets
-            int globalLargestColumnIndex = startTableColumnIndex + largestColumnNumber;
-            for (int largeBucketNumber = 0; largeBucketNumber < binder.numBucketsPerColumn; largeBucketNumber++) {
-                writeBucket(binder.tempFolder, globalLargestColumnIndex, largeBucketNumber, -1, buckets.get(largestColumnNumber).get(largeBucketNumber), binder.columnSizes);
-                buckets.get(largestColumnNumber).set(largeBucketNumber, new HashMap<>());
+            scan.binder.spillCounts[globalLargestColumnIndex] = scan.binder.spillCounts[globalLargestColumnIndex] + 1;
+        }
+    }
+
+    /**
+     * Spills the largest individual buckets of the table instead of all buckets of its largest column, so that small buckets stay in memory and keep
+     * absorbing their values. The buckets are taken from a priority queue ordered by their sizes until the budget is met again and at least
+     * 1/{@link #MIN_SPILL_FRACTION} of it is freed; the spilled buckets of each column are written together as one spill.
+     */
+    private static void spillLargestBuckets(PartialBinderAlgorithm binder, SpillWriter spillWriter, TableScan scan, long[] bytesInColumn, long[] bytesInBucket)
+            throws IOException {
+        if (!spillWriter.isBudgetExceeded())
+            return;
+
+        int numBuckets = binder.numBucketsPerColumn;
+        IntHeapPriorityQueue largestBuckets = new IntHeapPriorityQueue((first, second) -> Long.compare(bytesInBucket[second], bytesInBucket[first]));
+        for (int bucket = 0; bucket < bytesInBucket.length; bucket++)
+            if (bytesInBucket[bucket] > 0)
+                largestBuckets.enqueue(bucket);
+
+        // Collect the largest buckets until enough memory would be freed; pending spills count as freed, as in the spill decision
+        long excess = spillWriter.getExcess();
+        long bytesToFree = Math.max(excess, scan.memoryManager.getBudget() / MIN_SPILL_FRACTION);
+        long freedBytes = 0;
+        Int2ObjectOpenHashMap<BitSet> spilledBucketsPerColumn = new Int2ObjectOpenHashMap<>();
+        Int2LongOpenHashMap spilledBytesPerColumn = new Int2LongOpenHashMap();
+        while ((freedBytes < bytesToFree) && !largestBuckets.isEmpty()) {
+            int bucket = largestBuckets.dequeueInt();
+            int columnNumber = bucket / numBuckets;
+            int bucketNumber = bucket % numBuckets;
+
+            BitSet spilledBuckets = spilledBucketsPerColumn.get(columnNumber);
+            if (spilledBuckets == null) {
+                spilledBuckets = new BitSet(numBuckets);
+                spilledBucketsPerColumn.put(columnNumber, spilledBuckets);
             }
-            numValuesInColumn[largestColumnNumber] = 0;
+            spilledBuckets.set(bucketNumber);
+            spilledBytesPerColumn.addTo(columnNumber, bytesInBucket[bucket]);
+            bytesInColumn[columnNumber] = bytesInColumn[columnNumber] - bytesInBucket[bucket];
+            freedBytes = freedBytes + bytesInBucket[bucket];
+            bytesInBucket[bucket] = 0;
+        }
 
-            binder.spillCounts[globalLargestColumnIndex] = binder.spillCounts[globalLargestColumnIndex] + 1;
+        // Write the spilled buckets column by column
+        for (Int2ObjectMap.Entry<BitSet> entry : Int2ObjectMaps.fastIterable(spilledBucketsPerColumn)) {
+            int globalColumnIndex = scan.startTableColumnIndex + entry.getIntKey();
+            spillWriter.spill(spilledBytesPerColumn.get(entry.getIntKey()), scan.detachBuckets(entry.getIntKey(), entry.getValue()));
 
-            System.gc();
+            binder.spillCounts[globalColumnIndex] = binder.spillCounts[globalColumnIndex] + 1;
         }
     }
 
-    private static void toDisk(PartialBinderAlgorithm binder, int[] emptyBuckets, int numTableColumns, int startTableColumnIndex, List<List<Map<String, Long>>> buckets) throws IOException {
+    private static void toDisk(PartialBinderAlgorithm binder, int[] emptyBuckets, int numTableColumns, TableScan scan) throws IOException {
         for (int columnNumber = 0; columnNumber < numTableColumns; columnNumber++) {
-            int globalColumnIndex = startTableColumnIndex + columnNumber;
-            if (binder.spillCounts[globalColumnIndex] == 0) { // if a column was spilled to disk, we do not count empty buckets for this column, because the partitioning
-                // distributes the values evenly and hence all buckets should have been populated
-                for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++) {
-                    Map<String, Long> bucket = buckets.get(columnNumber).get(bucketNumber);
-                    if (bucket.size() != 0)
-                        writeBucket(binder.tempFolder, globalColumnIndex, bucketNumber, -1, bucket, binder.columnSizes);
-                    else emptyBuckets[bucketNumber] = emptyBuckets[bucketNumber] + 1;
-                }
-            } else {
-                for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++) {
-                    Map<String, Long> bucket = buckets.get(columnNumber).get(bucketNumber);
-                    if (bucket.size() != 0)
-                        writeBucket(binder.tempFolder, globalColumnIndex, bucketNumber, -1, bucket, binder.columnSizes);
-                }
-            }
+            // Buckets count as filled even if all their values have been spilled, so that the statistics are the same whether and when a column spilled
+            for (int bucketNumber = 0; bucketNumber < binder.numBucketsPerColumn; bucketNumber++)
+                if (scan.isBucketEmpty(columnNumber, bucketNumber))
+                    emptyBuckets[bucketNumber] = emptyBuckets[bucketNumber] + 1;
+            scan.detachBuckets(columnNumber, null).write();
         }
     }
 
     static int calculateBucketFor(String value, int numBucketsPerColumn) {
-        return Math.abs(value.hashCode() % numBucketsPerColumn); // range partitioning
+        return calculateBucketFor(HashUtils.hash64(value), numBucketsPerColumn);
+    }
+
+    // The bucket is chosen by the high half of the hash and the sub bucket by the low half, so that the values of a bucket spread evenly over its
+    // sub buckets; both halves are mapped onto their ranges by a multiplication instead of a biased modulo
+    private static int calculateBucketFor(long hash, int numBucketsPerColumn) {
+        return (int) (((hash >>> 32) * numBucketsPerColumn) >>> 32);
     }
 
-    private static int calculateBucketFor(String value, int bucketNumber, int numSubBuckets, int numBucketsPerColumn) {
-        return ((Math.abs(value.hashCode() % (numBucketsPerColumn * numSubBuckets)) - bucketNumber) / numBucketsPerColumn); // range partitioning
+    private static int calculateSubBucketFor(String value, int numSubBuckets) {
+        return (int) (((HashUtils.hash64(value) & 0xFFFFFFFFL) * numSubBuckets) >>> 32);
     }
 
     static void calculateBucketComparisonOrder(int[] emptyBuckets, int numBucketsPerColumn, int numColumns, PartialBinderAlgorithm binder) {
@@ -336,78 +835,185 @@ public class Bucketizer {
             binder.bucketComparisonOrder[rank] = levels.get(rank).number();
     }
 
-    static void writeBucket(File tempFolder, int attributeNumber, int bucketNumber, int subBucketNumber, Map<String, Long> values, ArrayList<Long> columnSizes) throws IOException {
-        // Write the values
-        String bucketFilePath = getBucketFilePath(tempFolder, attributeNumber, bucketNumber, subBucketNumber);
-        writeToDisk(bucketFilePath, values);
+    static void writeBuckets(PartialBinderAlgorithm binder, int attributeNumber, int level, List<Object2LongOpenHashMap<String>> buckets) throws IOException {
+        writeBuckets(binder, attributeNumber, level, 0, buckets);
+    }
+
+    /**
+     * Writes the non-empty buckets of one attribute as new runs; the bucket store may write buckets that reside on different devices concurrently.
+     * If the buckets of the current phase are pre-partitioned, every bucket is written as runs of its pre-partitions instead.
+     *
+     * @param level                 -1 if the buckets are all bucket levels of the attribute, otherwise the bucket level whose sub buckets are given
+     * @param firstSubBucketNumber  the sub bucket number of the first sub bucket; ignored for whole buckets
+     * @param buckets               the buckets, indexed by their bucket or sub bucket number; null for buckets that are not written
+     */
+    static void writeBuckets(PartialBinderAlgorithm binder, int attributeNumber, int level, int firstSubBucketNumber, List<Object2LongOpenHashMap<String>> buckets) throws IOException {
+        List<BucketStore.BucketTask> tasks = new ArrayList<>(buckets.size());
+        long size = binder.columnSizes.get(attributeNumber);
+        for (int number = 0; number < buckets.size(); number++) {
+            Object2LongOpenHashMap<String> values = buckets.get(number);
+            if ((values == null) || values.isEmpty())
+                continue;
+
+            int bucketNumber = (level < 0) ? number : level;
+            int subBucketNumber = (level < 0) ? -1 : firstSubBucketNumber + number;
+            size = size + addWriteTasks(binder, tasks, attributeNumber, bucketNumber, subBucketNumber, values);
+        }
+        binder.bucketStore.runAll(tasks);
+        binder.columnSizes.set(attributeNumber, size);
+    }
+
+    /**
+     * Writes the non-empty off-heap buckets of one attribute as new runs and releases the buckets. Only one bucket at a time is copied onto the heap
+     * for writing, so that a spill does not need heap memory for all spilled values.
+     *
+     * @param buckets the buckets, indexed by their bucket number; null for buckets that are not written
+     */
+    static void writeOffHeapBuckets(PartialBinderAlgorithm binder, int attributeNumber, OffHeapBucket[] buckets) throws IOException {
+        for (int bucketNumber = 0; bucketNumber < buckets.length; bucketNumber++) {
+            OffHeapBucket bucket = buckets[bucketNumber];
+            if (bucket == null)
+                continue;
+            try {
+                if (bucket.isEmpty())
+                    continue;
+                List<BucketStore.BucketTask> tasks = new ArrayList<>(binder.numPrePartitions);
+                long size = addWriteTasks(binder, tasks, attributeNumber, bucketNumber, -1, bucket.toMap());
+                binder.bucketStore.runAll(tasks);
+                binder.columnSizes.set(attributeNumber, binder.columnSizes.get(attributeNumber) + size);
+            } finally {
+                bucket.release();
+            }
+        }
+    }
+
+    /**
+     * Adds the tasks that write one (sub) bucket; a whole bucket is written as its pre-partitions if the buckets of the current phase are
+     * pre-partitioned.
+     *
+     * @return the size that the values of the bucket add to the size of the attribute
+     */
+    private static long addWriteTasks(PartialBinderAlgorithm binder, List<BucketStore.BucketTask> tasks, int attributeNumber, int bucketNumber, int subBucketNumber,
+                                      Object2LongOpenHashMap<String> values) {
+        if ((subBucketNumber < 0) && (binder.numPrePartitions > 1)) {
+            List<List<String>> prePartitions = prePartition(values, binder.numPrePartitions);
+            for (int prePartition = 0; prePartition < prePartitions.size(); prePartition++) {
+                String[] prePartitionValues = prePartitions.get(prePartition).toArray(new String[0]);
+                if (prePartitionValues.length == 0)
+                    continue;
+                int prePartitionNumber = prePartition;
+                tasks.add(new BucketStore.BucketTask(attributeNumber, bucketNumber, prePartitionNumber,
+                        () -> writeToDisk(binder, attributeNumber, bucketNumber, prePartitionNumber, values, prePartitionValues)));
+            }
+        } else {
+            tasks.add(new BucketStore.BucketTask(attributeNumber, bucketNumber, subBucketNumber, () -> writeToDisk(binder, attributeNumber, bucketNumber, subBucketNumber, values)));
+        }
 
-        // Add the size of the written values to the size of the current attribute
-        long size = columnSizes.get(attributeNumber);
         // Bytes that each value requires in the comparison phase for the indexes
         int overheadPerValueForIndexes = 64;
+        long size = 0;
         for (String value : values.keySet())
             size = size + MeasurementUtils.sizeOf64(value) + overheadPerValueForIndexes;
-        columnSizes.set(attributeNumber, size);
+        return size;
+    }
+
+    // Splits the values of a bucket by the same hash bits as the refinement does; the pre-partitions only reference the values of the bucket
+    private static List<List<String>> prePartition(Object2LongOpenHashMap<String> values, int numPrePartitions) {
+        List<List<String>> prePartitions = new ArrayList<>(numPrePartitions);
+        for (int prePartition = 0; prePartition < numPrePartitions; prePartition++)
+            prePartitions.add(new ArrayList<>(values.size() / numPrePartitions + 1));
+        for (String value : values.keySet())
+            prePartitions.get(calculateSubBucketFor(value, numPrePartitions)).add(value);
+        return prePartitions;
     }
 
-    private static void writeToDisk(String bucketFilePath, Map<String, Long> values) throws IOException {
+    private static void writeToDisk(PartialBinderAlgorithm binder, int attributeNumber, int bucketNumber, int subBucketNumber, Object2LongOpenHashMap<String> values) throws IOException {
         if ((values == null) || (values.isEmpty())) return;
 
-        BufferedWriter writer = null;
+        writeToDisk(binder, attributeNumber, bucketNumber, subBucketNumber, values, values.keySet().toArray(new String[0]));
+    }
+
+    // Writes the given values with their counts from the bucket; the array is sorted in place
+    private static void writeToDisk(PartialBinderAlgorithm binder, int attributeNumber, int bucketNumber, int subBucketNumber, Object2LongOpenHashMap<String> values,
+                                    String[] sortedValues) throws IOException {
+        // Each spill becomes a sorted run, so that all runs of a bucket can later be merged in a single streaming pass
+        Arrays.sort(sortedValues);
+
+        BucketWriter writer = null;
         try {
-            writer = FileUtils.buildFileWriter(bucketFilePath, true);
-            for (String value : values.keySet()) {
-                writer.write(value);
-                writer.newLine();
-                writer.write(values.get(value).toString());
-                writer.newLine();
-            }
-            writer.flush();
+            writer = binder.bucketStore.openRun(attributeNumber, bucketNumber, subBucketNumber);
+            for (String value : sortedValues)
+                writer.write(value, values.getLong(value));
         } finally {
             FileUtils.close(writer);
         }
     }
 
-    static Map<String, Long> readBucketAsList(PartialBinderAlgorithm binder, int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
-        if ((binder.attribute2subBucketsCache != null) && (binder.attribute2subBucketsCache.containsKey(attributeNumber)))
-            return binder.attribute2subBucketsCache.get(attributeNumber).get(subBucketNumber);
-
-        Map<String, Long> bucket = new HashMap<>();
-        String bucketFilePath = getBucketFilePath(binder.tempFolder, attributeNumber, bucketNumber, subBucketNumber);
-        readFromDisk(bucketFilePath, bucket);
-        return bucket;
+    /**
+     * Loads the (sub) buckets of several attributes at once, so that a bucket store that spans several devices can read from all of them concurrently.
+     *
+     * @return the buckets in the order of the given attributes
+     */
+    static List<Object2LongOpenHashMap<String>> readBuckets(PartialBinderAlgorithm binder, IntArrayList attributeNumbers, int bucketNumber, int subBucketNumber) throws IOException {
+        return readBuckets(binder, attributeNumbers, bucketNumber, subBucketNumber, Object2LongOpenHashMap::new);
     }
 
-    private static void readFromDisk(String bucketFilePath, Map<String, Long> values) throws IOException {
-        File file = new File(bucketFilePath);
-        if (!file.exists()) return;
+    /**
+     * @param newBucket supplies the empty maps that the buckets are read into, e.g., from a pool
+     */
+    static List<Object2LongOpenHashMap<String>> readBuckets(PartialBinderAlgorithm binder, IntArrayList attributeNumbers, int bucketNumber, int subBucketNumber,
+                                                            Supplier<Object2LongOpenHashMap<String>> newBucket) throws IOException {
+        List<Object2LongOpenHashMap<String>> buckets = new ArrayList<>(attributeNumbers.size());
+        List<BucketStore.BucketTask> tasks = new ArrayList<>(attributeNumbers.size());
+        for (int attributeNumber : attributeNumbers) {
+            if ((binder.attribute2subBucketsCache != null) && (binder.attribute2subBucketsCache.containsKey(attributeNumber))) {
+                buckets.add(binder.attribute2subBucketsCache.get(attributeNumber).get(subBucketNumber - binder.attribute2subBucketsCacheOffset));
+                continue;
+            }
+
+            Object2LongOpenHashMap<String> bucket = newBucket.get();
+            buckets.add(bucket);
+            tasks.add(new BucketStore.BucketTask(attributeNumber, bucketNumber, subBucketNumber, () -> readFromDisk(binder, attributeNumber, bucketNumber, subBucketNumber, bucket)));
+        }
+        binder.bucketStore.runAll(tasks);
+        return buckets;
+    }
 
-        BufferedReader reader = null;
-        String value;
+    private static void readFromDisk(PartialBinderAlgorithm binder, int attributeNumber, int bucketNumber, int subBucketNumber, Object2LongOpenHashMap<String> values) throws IOException {
+        BucketReader reader = null;
         try {
-            reader = FileUtils.buildFileReader(bucketFilePath);
-            while ((value = reader.readLine()) != null) {
-                long amount = Long.parseLong(reader.readLine());
-                values.put(value, amount);
-            }
+            reader = binder.bucketStore.openBucket(attributeNumber, bucketNumber, subBucketNumber);
+            if (reader == null) return;
+
+            // The merged runs deliver every value once with its summed count
+            while (reader.next())
+                values.put(reader.getValue(), reader.getCount());
         } finally {
             FileUtils.close(reader);
         }
     }
 
-    private static BufferedReader getBucketReader(File tempFolder, int attributeNumber, int bucketNumber) throws IOException {
-        String bucketFilePath = getBucketFilePath(tempFolder, attributeNumber, bucketNumber, -1);
-
-        File file = new File(bucketFilePath);
-        if (!file.exists()) return null;
-
-        return FileUtils.buildFileReader(bucketFilePath);
-    }
+    /**
+     * @return a reader that delivers the distinct values of the whole bucket in sorted order; null if the bucket is empty
+     */
+    static BucketReader getBucketReader(PartialBinderAlgorithm binder, int attributeNumber, int bucketNumber) throws IOException {
+        if (binder.numPrePartitions == 1)
+            return binder.bucketStore.openBucket(attributeNumber, bucketNumber, -1);
 
-    private static String getBucketFilePath(File tempFolder, int attributeNumber, int bucketNumber, int subBucketNumber) {
-        if (subBucketNumber >= 0)
-            return tempFolder.getPath() + File.separator + attributeNumber + File.separator + bucketNumber + "_" + subBucketNumber;
-        return tempFolder.getPath() + File.separator + attributeNumber + File.separator + bucketNumber;
+        // A pre-partitioned bucket is read as the merge of its pre-partitions, which are sorted runs of disjoint values
+        List<BucketReader> prePartitions = new ArrayList<>(binder.numPrePartitions);
+        try {
+            for (int prePartition = 0; prePartition < binder.numPrePartitions; prePartition++) {
+                BucketReader reader = binder.bucketStore.openBucket(attributeNumber, bucketNumber, prePartition);
+                if (reader != null)
+                    prePartitions.add(reader);
+            }
+            return BucketFiles.mergeRuns(prePartitions);
+        } catch (IOException e) {
+            for (BucketReader reader : prePartitions)
+                FileUtils.close(reader);
+            throw e;
+        }
     }
 
     static int[] refineBucketLevel(PartialBinderAlgorithm binder, BitSet activeAttributes, int attributeOffset, int level) throws IOException {
@@ -416,9 +1022,9 @@ public class Bucketizer {
         // Empty sub bucket cache, because it will be refilled in the following
         //logger.info("Refining at level " + (level + 1));
         binder.attribute2subBucketsCache = null;
-
-        // Give a hint to the gc
-        System.gc();
+        binder.memoryManager.release(binder.attribute2subBucketsCacheSize);
+        binder.attribute2subBucketsCacheSize = 0;
+        binder.attribute2subBucketsCacheOffset = 0;
 
         // Measure the size of the level and find the attribute with the largest bucket
         int numAttributes = 0;
@@ -429,6 +1035,9 @@ public class Bucketizer {
             long bucketSize = binder.columnSizes.get(attributeIndex) / binder.numBucketsPerColumn;
             levelSize = levelSize + bucketSize;
         }
+        // The unary levels are validated with an attribute group index, whose groups may take memory beyond the buckets
+        if (attributeOffset == 0)
+            levelSize = levelSize + AttributeGroupIndex.sizeOfGroups(numAttributes, levelSize);
 
         // If there are no active attributes, no refinement is needed
         if (numAttributes == 0) {
@@ -441,6 +1050,22 @@ public class Bucketizer {
         long maxBucketSize = binder.maxMemoryUsage / numAttributes;
         int numSubBuckets = (int) (levelSize / binder.maxMemoryUsage) + 1;
 
+        // If the pre-partitions of the current level fit into memory, they serve as its sub buckets; otherwise, the level is refined as a whole and
+        // its new sub buckets are numbered behind the pre-partitions
+        int firstSubBucketNumber = 0;
+        if (binder.numPrePartitions > 1) {
+            if (numSubBuckets <= binder.numPrePartitions) {
+                int[] subBucketNumbers = new int[binder.numPrePartitions];
+                for (int subBucketNumber = 0; subBucketNumber < binder.numPrePartitions; subBucketNumber++)
+                    subBucketNumbers[subBucketNumber] = subBucketNumber;
+
+                if (attributeOffset == 0) binder.refinements[level] = binder.numPrePartitions;
+                else binder.naryRefinements.get(binder.naryRefinements.size() - 1)[level] = binder.numPrePartitions;
+                return subBucketNumbers;
+            }
+            firstSubBucketNumber = binder.numPrePartitions;
+        }
+
         int[] subBucketNumbers = new int[numSubBuckets];
 
         // If the current level fits into memory, no refinement is needed
@@ -450,66 +1075,111 @@ public class Bucketizer {
         }
 
         for (int subBucketNumber = 0; subBucketNumber < numSubBuckets; subBucketNumber++)
-            subBucketNumbers[subBucketNumber] = subBucketNumber;
+            subBucketNumbers[subBucketNumber] = firstSubBucketNumber + subBucketNumber;
 
         if (attributeOffset == 0) binder.refinements[level] = numSubBuckets;
         else binder.naryRefinements.get(binder.naryRefinements.size() - 1)[level] = numSubBuckets;
 
         binder.attribute2subBucketsCache = new Int2ObjectOpenHashMap<>(numSubBuckets);
+        binder.attribute2subBucketsCacheOffset = firstSubBucketNumber;
 
-        // Refine
-        for (int attribute = activeAttributes.nextSetBit(0); attribute >= 0; attribute = activeAttributes.nextSetBit(attribute + 1)) {
-            int attributeIndex = attribute + attributeOffset;
+        // Refine; the sub buckets of one attribute are written in the background while the next attribute is read
+        try (SpillWriter spillWriter = new SpillWriter(binder)) {
+            if ((binder.numRefinementThreads <= 1) || (numAttributes == 1)) {
+                for (int attribute = activeAttributes.nextSetBit(0); attribute >= 0; attribute = activeAttributes.nextSetBit(attribute + 1))
+                    refineBucket(binder, spillWriter, attribute + attributeOffset, level, numSubBuckets, firstSubBucketNumber, maxBucketSize);
+            } else {
+                refineBucketsInParallel(binder, spillWriter, activeAttributes, attributeOffset, level, numSubBuckets, firstSubBucketNumber, maxBucketSize,
+                        Math.min(binder.numRefinementThreads, numAttributes));
+            }
+        }
 
-            List<Map<String, Long>> subBuckets = new ArrayList<>(numSubBuckets);
-            for (int subBucket = 0; subBucket < numSubBuckets; subBucket++)
-                subBuckets.add(new HashMap<>());
+        return subBucketNumbers;
+    }
 
-            BufferedReader reader = null;
-            String value;
-            boolean spilled = false;
-            try {
-                reader = getBucketReader(binder.tempFolder, attributeIndex, level);
-
-                if (reader != null) {
-                    int numValuesSinceLastMemoryCheck = 0;
-
-                    while ((value = reader.readLine()) != null) {
-                        int bucketNumber = calculateBucketFor(value, level, numSubBuckets, binder.numBucketsPerColumn);
-                        long amount = Long.parseLong(reader.readLine());
-                        subBuckets.get(bucketNumber).compute(value, (k, v) -> v == null ? amount : v + amount);
-                        numValuesSinceLastMemoryCheck++;
-
-                        // Occasionally check the memory consumption
-                        if (numValuesSinceLastMemoryCheck >= binder.memoryCheckFrequency) {
-                            numValuesSinceLastMemoryCheck = 0;
-
-                            // Spill to disk if necessary
-                            if (ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() > binder.maxMemoryUsage) {
-                                for (int subBucket = 0; subBucket < numSubBuckets; subBucket++) {
-                                    writeBucket(binder.tempFolder, attributeIndex, level, subBucket, subBuckets.get(subBucket), binder.columnSizes);
-                                    subBuckets.set(subBucket, new HashMap<>());
-                                }
+    /**
+     * Refines the buckets of the given attributes concurrently. Every worker refines one attribute at a time, so that the reading of one bucket
+     * overlaps with the splitting of the others; all workers share the spill writer and the memory budget.
+     */
+    private static void refineBucketsInParallel(PartialBinderAlgorithm binder, SpillWriter spillWriter, BitSet activeAttributes, int attributeOffset, int level,
+                                                int numSubBuckets, int firstSubBucketNumber, long maxBucketSize, int numWorkers) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+        try {
+            List<Future<?>> refinements = new ArrayList<>(activeAttributes.cardinality());
+            for (int attribute = activeAttributes.nextSetBit(0); attribute >= 0; attribute = activeAttributes.nextSetBit(attribute + 1)) {
+                int attributeIndex = attribute + attributeOffset;
+                refinements.add(executor.submit(() -> {
+                    refineBucket(binder, spillWriter, attributeIndex, level, numSubBuckets, firstSubBucketNumber, maxBucketSize);
+                    return null;
+                }));
+            }
 
-                                spilled = true;
-                                System.gc();
-                            }
-                        }
+            // Wait for all refinements, even if one fails, because the spill writer must not be closed while the others still use it
+            awaitAll(refinements);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the bucket of one attribute at the given level into its sub buckets, which are either written to disk or put into the sub bucket cache.
+     * Buckets of different attributes can be refined concurrently.
+     */
+    private static void refineBucket(PartialBinderAlgorithm binder, SpillWriter spillWriter, int attributeIndex, int level, int numSubBuckets, int firstSubBucketNumber,
+                                     long maxBucketSize) throws IOException {
+        List<Object2LongOpenHashMap<String>> subBuckets = initializeSubBuckets(numSubBuckets);
+
+        BucketReader reader = null;
+        boolean spilled = false;
+        long subBucketsSize = 0;
+        try {
+            reader = getBucketReader(binder, attributeIndex, level);
+
+            if (reader != null) {
+                while (reader.next()) {
+                    String value = reader.getValue();
+                    int bucketNumber = calculateSubBucketFor(value, numSubBuckets);
+                    // The merged runs deliver every value only once, so every value is a new entry of its sub bucket
+                    subBuckets.get(bucketNumber).addTo(value, reader.getCount());
+                    long entrySize = MemoryManager.sizeOfEntry(value);
+                    subBucketsSize = subBucketsSize + entrySize;
+                    binder.memoryManager.reserve(entrySize);
+
+                    // Spill to disk if necessary, but only once the sub buckets hold their share of the budget, because the budget might as well
+                    // be exhausted by the cached sub buckets of other attributes
+                    if (spillWriter.isBudgetExceeded() && (subBucketsSize >= maxBucketSize)) {
+                        writeSubBuckets(binder, spillWriter, attributeIndex, level, firstSubBucketNumber, subBuckets, subBucketsSize);
+                        subBuckets = initializeSubBuckets(numSubBuckets);
+                        subBucketsSize = 0;
+
+                        spilled = true;
                     }
                 }
-            } finally {
-                FileUtils.close(reader);
             }
-
-            // Large sub buckets need to be written to disk; small sub buckets can stay in memory
-            if ((binder.columnSizes.get(attributeIndex) / binder.numBucketsPerColumn > maxBucketSize) || spilled)
-                for (int subBucket = 0; subBucket < numSubBuckets; subBucket++)
-                    writeBucket(binder.tempFolder, attributeIndex, level, subBucket, subBuckets.get(subBucket), binder.columnSizes);
-            else binder.attribute2subBucketsCache.put(attributeIndex, subBuckets);
+        } finally {
+            FileUtils.close(reader);
         }
 
-        return subBucketNumbers;
+        // Large sub buckets need to be written to disk; small sub buckets can stay in memory
+        if ((binder.columnSizes.get(attributeIndex) / binder.numBucketsPerColumn > maxBucketSize) || spilled) {
+            writeSubBuckets(binder, spillWriter, attributeIndex, level, firstSubBucketNumber, subBuckets, subBucketsSize);
+        } else {
+            synchronized (binder.attribute2subBucketsCache) {
+                binder.attribute2subBucketsCache.put(attributeIndex, subBuckets);
+                binder.attribute2subBucketsCacheSize = binder.attribute2subBucketsCacheSize + subBucketsSize;
+            }
+        }
     }
 
+    private static List<Object2LongOpenHashMap<String>> initializeSubBuckets(int numSubBuckets) {
+        List<Object2LongOpenHashMap<String>> subBuckets = new ArrayList<>(numSubBuckets);
+        for (int subBucket = 0; subBucket < numSubBuckets; subBucket++)
+            subBuckets.add(new Object2LongOpenHashMap<>());
+        return subBuckets;
+    }
 
+    private static void writeSubBuckets(PartialBinderAlgorithm binder, SpillWriter spillWriter, int attributeIndex, int level, int firstSubBucketNumber,
+                                        List<Object2LongOpenHashMap<String>> subBuckets, long subBucketsSize) throws IOException {
+        spillWriter.spill(subBucketsSize, () -> writeBuckets(binder, attributeIndex, level, firstSubBucketNumber, subBuckets));
+    }
 }
@@ -1,18 +1,37 @@
 package binder.core;
 
+import binder.io.BucketStore;
+import binder.io.FileBucketStore;
+import binder.io.FileInputIterator;
+import binder.io.SegmentBucketStore;
+import binder.io.StripedBucketStore;
+import binder.structures.MemoryManager;
+import binder.structures.OffHeapArena;
+import binder.structures.ValueDictionary;
 import binder.utils.FileUtils;
+import binder.utils.MeasurementUtils;
+import com.sun.management.HotSpotDiagnosticMXBean;
 import de.metanome.algorithm_integration.input.InputGenerationException;
+import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import de.metanome.backend.input.file.DefaultFileInputGenerator;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class Initializer {
 
+    private static final int ADAPTIVE_SAMPLE_ROWS = 10000; // Number of rows per table from which the adaptive number of buckets is estimated
+    private static final int MAX_ADAPTIVE_BUCKETS = 1 << 12; // Bounds the number of bucket files that the adaptive number of buckets may cause
+
     public static void initialize(PartialBinderAlgorithm binder) throws InputGenerationException {
 
         //logger.info("Starting initialization");
@@ -27,10 +46,54 @@ public class Initializer {
         // Clean temp if there are files from previous runs that may pollute this run
         FileUtils.cleanDirectory(binder.tempFolder);
 
+        // Initialize the spill folders, which default to the temp folder
+        binder.spillFolders = new ArrayList<>();
+        if (binder.spillFolderPaths.isEmpty())
+            binder.spillFolders.add(binder.tempFolder);
+        else
+            for (String spillFolderPath : binder.spillFolderPaths.split(File.pathSeparator))
+                binder.spillFolders.add(new File(spillFolderPath + File.separator + "temp"));
+
+        // Initialize the bucket storage with one store per spill folder; several folders are striped and accessed concurrently
+        List<BucketStore> stores = new ArrayList<>(binder.spillFolders.size());
+        for (File spillFolder : binder.spillFolders) {
+            FileUtils.cleanDirectory(spillFolder);
+            stores.add(switch (binder.bucketStorage) {
+                case FILES -> new FileBucketStore(spillFolder, binder.bucketFormat, binder.bucketCompression, binder.memoryMappedBuckets);
+                case SEGMENTS -> new SegmentBucketStore(spillFolder, binder.bucketFormat, binder.bucketCompression, binder.memoryMappedBuckets);
+            });
+        }
+        binder.bucketStore = (stores.size() == 1) ? stores.get(0) : new StripedBucketStore(stores);
+
+        // Initialize the folder for the columnar copies of the tables, which only the n-ary levels read; it lies beside the temp folder, because the
+        // temp folder is cleaned before the n-ary levels start
+        binder.columnarCacheFolder = null;
+        if (binder.columnarCache && binder.detectNary) {
+            binder.columnarCacheFolder = new File(binder.tempFolderPath + File.separator + "columns");
+            FileUtils.cleanDirectory(binder.columnarCacheFolder);
+        }
+
         // Initialize memory management
         binder.availableMemory = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
         binder.maxMemoryUsage = (long) (binder.availableMemory * (binder.maxMemoryUsagePercentage / 100.0f));
 
+        // Initialize the global value dictionary
+        long dictionaryMemory = 0;
+        if (binder.dictionaryEncoding) {
+            dictionaryMemory = (long) (binder.maxMemoryUsage * (binder.maxDictionaryMemoryPercentage / 100.0f));
+            binder.valueDictionary = new ValueDictionary(dictionaryMemory);
+        }
+
+        // The buckets may use the memory that the dictionary does not reserve
+        binder.memoryManager = new MemoryManager(binder.maxMemoryUsage - dictionaryMemory);
+        // The off-heap buckets have their own budget, because they do not take heap memory
+        if (binder.offHeapBuckets) {
+            long offHeapBudget = (binder.maxOffHeapMemory > 0) ? binder.maxOffHeapMemory * (1L << 20) :
+                    (long) (getMaxDirectMemory() * (binder.maxMemoryUsagePercentage / 100.0f));
+            binder.offHeapMemoryManager = new MemoryManager(offHeapBudget);
+            binder.offHeapArena = new OffHeapArena();
+        }
+
         // Query meta data for input tables
         initializeMetaData(binder);
 
@@ -59,8 +122,6 @@ public class Initializer {
         // initialize empty variables
         binder.tableColumnStartIndexes = new int[binder.tableNames.length];
         binder.columnNames = new ArrayList<>();
-        binder.activeAttributesPerBucketLevel = new IntArrayList(binder.numBucketsPerColumn);
-        binder.refinements = new int[binder.numBucketsPerColumn];
 
         for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++) {
             // remember with columns belong to which table
@@ -70,6 +131,14 @@ public class Initializer {
             collectStatisticsFrom(binder, binder.fileInputGenerator[tableIndex]);
         }
 
+        // The number of buckets must be known before the per-level statistics are allocated
+        double inputSize = (binder.adaptiveBuckets || binder.prePartitioning) ? estimateInputSize(binder) : -1;
+        if (binder.adaptiveBuckets)
+            binder.numBucketsPerColumn = estimateNumBucketsPerColumn(binder, inputSize);
+        binder.numPrePartitions = binder.prePartitioning ? estimateNumPrePartitions(binder, inputSize) : 1;
+        binder.activeAttributesPerBucketLevel = new IntArrayList(binder.numBucketsPerColumn);
+        binder.refinements = new int[binder.numBucketsPerColumn];
+
         // update the pointer to respect the new columns
         binder.numColumns = binder.columnNames.size();
         binder.columnSizes = new ArrayList<>(binder.numColumns);
@@ -86,6 +155,140 @@ public class Initializer {
 
     }
 
+    /**
+     * @return the limit of direct memory as set by -XX:MaxDirectMemorySize or, if it is not set, the maximum heap size, which is the JVM's default
+     */
+    private static long getMaxDirectMemory() {
+        try {
+            HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long maxDirectMemory = Long.parseLong(diagnostics.getVMOption("MaxDirectMemorySize").getValue());
+            if (maxDirectMemory > 0)
+                return maxDirectMemory;
+        } catch (RuntimeException e) {
+            // Not a HotSpot JVM; fall back to its default
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Estimates the number of buckets per column for which every bucket level fits into half of the memory budget, so that the validation needs no
+     * refinement; the other half leaves room for estimation errors. If the size of the input cannot be estimated, the configured number of buckets
+     * is kept.
+     */
+    private static int estimateNumBucketsPerColumn(PartialBinderAlgorithm binder, double inputSize) {
+        if (inputSize < 0)
+            return binder.numBucketsPerColumn;
+
+        long levelBudget = binder.memoryManager.getBudget() / 2;
+        return (int) Math.min(MAX_ADAPTIVE_BUCKETS, Math.max(1, (long) Math.ceil(inputSize / Math.max(1, levelBudget))));
+    }
+
+    /**
+     * Estimates the number of sub buckets into which the validation would refine the bucket levels of the unary attributes; 1 if the levels fit into
+     * memory or the size of the input cannot be estimated.
+     */
+    private static int estimateNumPrePartitions(PartialBinderAlgorithm binder, double inputSize) {
+        if (inputSize < 0)
+            return 1;
+
+        return Bucketizer.calculateNumPrePartitions(binder, inputSize / binder.numBucketsPerColumn);
+    }
+
+    /**
+     * Estimates the size of all distinct values of the input as they are measured by the bucketizer. The estimate reads a sample of the first rows
+     * of every table and extrapolates the sizes of its columns to the size of the input file:
+     * <ul>
+     *     <li>the number of rows is the file size divided by the average size of the sampled rows and</li>
+     *     <li>the number of distinct values of a column grows by the rate at which the second half of the sample has introduced new values.</li>
+     * </ul>
+     * The number of rows of an input that is not a file can only be estimated if the sample reads it completely.
+     *
+     * @return the estimated size in bytes or -1 if the size of a table cannot be estimated
+     */
+    private static double estimateInputSize(PartialBinderAlgorithm binder) {
+        double totalSize = 0;
+        for (int tableIndex = 0; tableIndex < binder.tableNames.length; tableIndex++) {
+            double tableSize = estimateTableSize(binder, tableIndex);
+            if (tableSize < 0)
+                return -1;
+            totalSize = totalSize + tableSize;
+        }
+        return totalSize;
+    }
+
+    /**
+     * @return the estimated size of all distinct values of the table as they are measured by the bucketizer, or -1 if the size cannot be estimated
+     */
+    private static double estimateTableSize(PartialBinderAlgorithm binder, int tableIndex) {
+        int sampleLimit = (binder.inputRowLimit > 0) ? Math.min(binder.inputRowLimit, ADAPTIVE_SAMPLE_ROWS) : ADAPTIVE_SAMPLE_ROWS;
+        List<Set<String>> distinctValues = new ArrayList<>();
+        long[] lateDistinctValues = null;
+        long[] distinctSizes = null;
+        long sampledRows = 0;
+        long sampledChars = 0;
+        boolean exhausted;
+
+        FileInputIterator inputIterator = null;
+        try {
+            inputIterator = new FileInputIterator(binder.tableNames[tableIndex], binder.fileInputGenerator[tableIndex], sampleLimit + 1);
+            while ((sampledRows < sampleLimit) && inputIterator.next()) {
+                List<String> values = inputIterator.getValues();
+                if (distinctSizes == null) {
+                    for (int column = 0; column < values.size(); column++)
+                        distinctValues.add(new HashSet<>());
+                    lateDistinctValues = new long[values.size()];
+                    distinctSizes = new long[values.size()];
+                }
+
+                sampledRows++;
+                for (int column = 0; column < distinctSizes.length; column++) {
+                    String value = values.get(column);
+                    sampledChars = sampledChars + ((value == null) ? 0 : value.length()) + 1; // +1 for the separator or line break
+                    if ((value == null) || !distinctValues.get(column).add(value))
+                        continue;
+                    // Same size measure as the column sizes of the bucketizer, i.e., the value plus its overhead in the indexes of the validation
+                    distinctSizes[column] = distinctSizes[column] + MeasurementUtils.sizeOf64(value) + 64;
+                    if (sampledRows > sampleLimit / 2)
+                        lateDistinctValues[column]++;
+                }
+            }
+            exhausted = (sampledRows < sampleLimit) || (sampledRows == binder.inputRowLimit) || !inputIterator.next();
+        } catch (IOException | InputIterationException e) {
+            throw new RuntimeException(e);
+        } finally {
+            FileUtils.close(inputIterator);
+        }
+
+        if ((sampledRows == 0) || (distinctSizes == null))
+            return 0;
+
+        double sampleSize = 0;
+        for (long distinctSize : distinctSizes)
+            sampleSize = sampleSize + distinctSize;
+        if (exhausted)
+            return sampleSize;
+
+        // Extrapolate the number of rows from the file size, if the input is a file
+        if (!(binder.fileInputGenerator[tableIndex] instanceof DefaultFileInputGenerator fileInputGenerator))
+            return -1;
+        double numRows = fileInputGenerator.getInputFile().length() / ((double) sampledChars / sampledRows);
+        if (binder.inputRowLimit > 0)
+            numRows = Math.min(numRows, binder.inputRowLimit);
+        double remainingRows = Math.max(0, numRows - sampledRows);
+
+        double tableSize = 0;
+        long secondHalfRows = sampledRows - sampledRows / 2;
+        for (int column = 0; column < distinctSizes.length; column++) {
+            int numDistinctValues = distinctValues.get(column).size();
+            if (numDistinctValues == 0)
+                continue;
+            double newValueRate = (double) lateDistinctValues[column] / secondHalfRows;
+            double averageSize = (double) distinctSizes[column] / numDistinctValues;
+            tableSize = tableSize + averageSize * (numDistinctValues + newValueRate * remainingRows);
+        }
+        return tableSize;
+    }
+
     static void collectStatisticsFrom(PartialBinderAlgorithm binder, RelationalInputGenerator inputGenerator) {
         try {
             RelationalInput input = inputGenerator.generateNewCopy();
@@ -1,9 +1,15 @@
 package binder.core;
 
+import binder.utils.BucketCompression;
+import binder.utils.BucketFormat;
+import binder.utils.BucketStorage;
 import binder.utils.CollectionUtils;
 import binder.utils.DuplicateHandling;
 import binder.utils.FileUtils;
+import binder.utils.NaryKeyEncoding;
 import binder.utils.NullHandling;
+import binder.utils.SpillPolicy;
+import binder.utils.ValidationEngine;
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
 import de.metanome.algorithm_integration.algorithm_types.*;
@@ -64,18 +70,56 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
         numBucketsPerColumn.setRequired(true);
         configs.add(numBucketsPerColumn);
 
-        ConfigurationRequirementInteger memoryCheckFrequency = new ConfigurationRequirementInteger(PartialBinder.Identifier.MEMORY_CHECK_FREQUENCY.name());
-        Integer[] defaultMemoryCheckFrequency = { Integer.valueOf(this.memoryCheckFrequency) };
-        memoryCheckFrequency.setDefaultValues(defaultMemoryCheckFrequency);
-        memoryCheckFrequency.setRequired(true);
-        configs.add(memoryCheckFrequency);
-
         ConfigurationRequirementInteger maxMemoryUsagePercentage = new ConfigurationRequirementInteger(PartialBinder.Identifier.MAX_MEMORY_USAGE_PERCENTAGE.name());
         Integer[] defaultMaxMemoryUsagePercentage = { Integer.valueOf(this.maxMemoryUsagePercentage) };
         maxMemoryUsagePercentage.setDefaultValues(defaultMaxMemoryUsagePercentage);
         maxMemoryUsagePercentage.setRequired(true);
         configs.add(maxMemoryUsagePercentage);
 
+        ConfigurationRequirementInteger numBucketizerThreads = new ConfigurationRequirementInteger(PartialBinder.Identifier.NUM_BUCKETIZER_THREADS.name());
+        Integer[] defaultNumBucketizerThreads = { Integer.valueOf(this.numBucketizerThreads) };
+        numBucketizerThreads.setDefaultValues(defaultNumBucketizerThreads);
+        numBucketizerThreads.setRequired(false);
+        configs.add(numBucketizerThreads);
+
+        ConfigurationRequirementInteger numValidationThreads = new ConfigurationRequirementInteger(PartialBinder.Identifier.NUM_VALIDATION_THREADS.name());
+        Integer[] defaultNumValidationThreads = { Integer.valueOf(this.numValidationThreads) };
+        numValidationThreads.setDefaultValues(defaultNumValidationThreads);
+        numValidationThreads.setRequired(false);
+        configs.add(numValidationThreads);
+
+        ConfigurationRequirementInteger maxOffHeapMemory = new ConfigurationRequirementInteger(PartialBinder.Identifier.MAX_OFF_HEAP_MEMORY.name());
+        Integer[] defaultMaxOffHeapMemory = { Integer.valueOf(this.maxOffHeapMemory) };
+        maxOffHeapMemory.setDefaultValues(defaultMaxOffHeapMemory);
+        maxOffHeapMemory.setRequired(false);
+        configs.add(maxOffHeapMemory);
+
+        ConfigurationRequirementBoolean intraLevelParallelism = new ConfigurationRequirementBoolean(PartialBinder.Identifier.INTRA_LEVEL_PARALLELISM.name());
+        Boolean[] defaultIntraLevelParallelism = new Boolean[1];
+        defaultIntraLevelParallelism[0] = Boolean.valueOf(this.intraLevelParallelism);
+        intraLevelParallelism.setDefaultValues(defaultIntraLevelParallelism);
+        intraLevelParallelism.setRequired(false);
+        configs.add(intraLevelParallelism);
+
+        ConfigurationRequirementBoolean candidateMatrix = new ConfigurationRequirementBoolean(PartialBinder.Identifier.CANDIDATE_MATRIX.name());
+        Boolean[] defaultCandidateMatrix = new Boolean[1];
+        defaultCandidateMatrix[0] = Boolean.valueOf(this.candidateMatrix);
+        candidateMatrix.setDefaultValues(defaultCandidateMatrix);
+        candidateMatrix.setRequired(false);
+        configs.add(candidateMatrix);
+
+        ConfigurationRequirementInteger numRefinementThreads = new ConfigurationRequirementInteger(PartialBinder.Identifier.NUM_REFINEMENT_THREADS.name());
+        Integer[] defaultNumRefinementThreads = { Integer.valueOf(this.numRefinementThreads) };
+        numRefinementThreads.setDefaultValues(defaultNumRefinementThreads);
+        numRefinementThreads.setRequired(false);
+        configs.add(numRefinementThreads);
+
+        ConfigurationRequirementInteger heavyHitterSlots = new ConfigurationRequirementInteger(PartialBinder.Identifier.HEAVY_HITTER_SLOTS.name());
+        Integer[] defaultHeavyHitterSlots = { Integer.valueOf(this.heavyHitterSlots) };
+        heavyHitterSlots.setDefaultValues(defaultHeavyHitterSlots);
+        heavyHitterSlots.setRequired(false);
+        configs.add(heavyHitterSlots);
+
         ConfigurationRequirementBoolean cleanTemp = new ConfigurationRequirementBoolean(PartialBinder.Identifier.CLEAN_TEMP.name());
         Boolean[] defaultCleanTemp = new Boolean[1];
         defaultCleanTemp[0] = Boolean.valueOf(this.cleanTemp);
@@ -90,6 +134,68 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
         detectNary.setRequired(true);
         configs.add(detectNary);
 
+        ConfigurationRequirementBoolean intraTableParallelism = new ConfigurationRequirementBoolean(PartialBinder.Identifier.INTRA_TABLE_PARALLELISM.name());
+        Boolean[] defaultIntraTableParallelism = new Boolean[1];
+        defaultIntraTableParallelism[0] = Boolean.valueOf(this.intraTableParallelism);
+        intraTableParallelism.setDefaultValues(defaultIntraTableParallelism);
+        intraTableParallelism.setRequired(false);
+        configs.add(intraTableParallelism);
+
+        ConfigurationRequirementBoolean asyncSpilling = new ConfigurationRequirementBoolean(PartialBinder.Identifier.ASYNC_SPILLING.name());
+        Boolean[] defaultAsyncSpilling = new Boolean[1];
+        defaultAsyncSpilling[0] = Boolean.valueOf(this.asyncSpilling);
+        asyncSpilling.setDefaultValues(defaultAsyncSpilling);
+        asyncSpilling.setRequired(false);
+        configs.add(asyncSpilling);
+
+        ConfigurationRequirementBoolean adaptiveBuckets = new ConfigurationRequirementBoolean(PartialBinder.Identifier.ADAPTIVE_BUCKETS.name());
+        Boolean[] defaultAdaptiveBuckets = new Boolean[1];
+        defaultAdaptiveBuckets[0] = Boolean.valueOf(this.adaptiveBuckets);
+        adaptiveBuckets.setDefaultValues(defaultAdaptiveBuckets);
+        adaptiveBuckets.setRequired(false);
+        configs.add(adaptiveBuckets);
+
+        ConfigurationRequirementBoolean offHeapBuckets = new ConfigurationRequirementBoolean(PartialBinder.Identifier.OFF_HEAP_BUCKETS.name());
+        Boolean[] defaultOffHeapBuckets = new Boolean[1];
+        defaultOffHeapBuckets[0] = Boolean.valueOf(this.offHeapBuckets);
+        offHeapBuckets.setDefaultValues(defaultOffHeapBuckets);
+        offHeapBuckets.setRequired(false);
+        configs.add(offHeapBuckets);
+
+        ConfigurationRequirementBoolean prePartitioning = new ConfigurationRequirementBoolean(PartialBinder.Identifier.PRE_PARTITIONING.name());
+        Boolean[] defaultPrePartitioning = new Boolean[1];
+        defaultPrePartitioning[0] = Boolean.valueOf(this.prePartitioning);
+        prePartitioning.setDefaultValues(defaultPrePartitioning);
+        prePartitioning.setRequired(false);
+        configs.add(prePartitioning);
+
+        ConfigurationRequirementBoolean columnarCache = new ConfigurationRequirementBoolean(PartialBinder.Identifier.COLUMNAR_CACHE.name());
+        Boolean[] defaultColumnarCache = new Boolean[1];
+        defaultColumnarCache[0] = Boolean.valueOf(this.columnarCache);
+        columnarCache.setDefaultValues(defaultColumnarCache);
+        columnarCache.setRequired(false);
+        configs.add(columnarCache);
+
+        ConfigurationRequirementBoolean memoryMappedBuckets = new ConfigurationRequirementBoolean(PartialBinder.Identifier.MEMORY_MAPPED_BUCKETS.name());
+        Boolean[] defaultMemoryMappedBuckets = new Boolean[1];
+        defaultMemoryMappedBuckets[0] = Boolean.valueOf(this.memoryMappedBuckets);
+        memoryMappedBuckets.setDefaultValues(defaultMemoryMappedBuckets);
+        memoryMappedBuckets.setRequired(false);
+        configs.add(memoryMappedBuckets);
+
+        ConfigurationRequirementBoolean dictionaryEncoding = new ConfigurationRequirementBoolean(PartialBinder.Identifier.DICTIONARY_ENCODING.name());
+        Boolean[] defaultDictionaryEncoding = new Boolean[1];
+        defaultDictionaryEncoding[0] = Boolean.valueOf(this.dictionaryEncoding);
+        dictionaryEncoding.setDefaultValues(defaultDictionaryEncoding);
+        dictionaryEncoding.setRequired(false);
+        configs.add(dictionaryEncoding);
+
+        ConfigurationRequirementInteger maxDictionaryMemoryPercentage = new ConfigurationRequirementInteger(PartialBinder.Identifier.MAX_DICTIONARY_MEMORY_PERCENTAGE.name());
+        Integer[] defaultMaxDictionaryMemoryPercentage = { Integer.valueOf(this.maxDictionaryMemoryPercentage) };
+        maxDictionaryMemoryPercentage.setDefaultValues(defaultMaxDictionaryMemoryPercentage);
+        maxDictionaryMemoryPercentage.setRequired(false);
+        configs.add(maxDictionaryMemoryPercentage);
+
         ConfigurationRequirementString nullH = new ConfigurationRequirementString(
                 Identifier.NULL_HANDLING.name());
         nullH.setDefaultValues(new String[]{"SUBSET"});
@@ -102,6 +208,48 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
         dupH.setRequired(true);
         configs.add(dupH);
 
+        ConfigurationRequirementString bucketFormat = new ConfigurationRequirementString(
+                Identifier.BUCKET_FORMAT.name());
+        bucketFormat.setDefaultValues(new String[]{this.bucketFormat.name()});
+        bucketFormat.setRequired(false);
+        configs.add(bucketFormat);
+
+        ConfigurationRequirementString bucketCompression = new ConfigurationRequirementString(
+                Identifier.BUCKET_COMPRESSION.name());
+        bucketCompression.setDefaultValues(new String[]{this.bucketCompression.name()});
+        bucketCompression.setRequired(false);
+        configs.add(bucketCompression);
+
+        ConfigurationRequirementString bucketStorage = new ConfigurationRequirementString(
+                Identifier.BUCKET_STORAGE.name());
+        bucketStorage.setDefaultValues(new String[]{this.bucketStorage.name()});
+        bucketStorage.setRequired(false);
+        configs.add(bucketStorage);
+
+        ConfigurationRequirementString naryKeyEncoding = new ConfigurationRequirementString(
+                Identifier.NARY_KEY_ENCODING.name());
+        naryKeyEncoding.setDefaultValues(new String[]{this.naryKeyEncoding.name()});
+        naryKeyEncoding.setRequired(false);
+        configs.add(naryKeyEncoding);
+
+        ConfigurationRequirementString spillPolicy = new ConfigurationRequirementString(
+                Identifier.SPILL_POLICY.name());
+        spillPolicy.setDefaultValues(new String[]{this.spillPolicy.name()});
+        spillPolicy.setRequired(false);
+        configs.add(spillPolicy);
+
+        ConfigurationRequirementString validationEngine = new ConfigurationRequirementString(
+                Identifier.VALIDATION_ENGINE.name());
+        validationEngine.setDefaultValues(new String[]{this.validationEngine.name()});
+        validationEngine.setRequired(false);
+        configs.add(validationEngine);
+
+        ConfigurationRequirementString spillFolders = new ConfigurationRequirementString(
+                Identifier.SPILL_FOLDER_PATHS.name());
+        spillFolders.setDefaultValues(new String[]{this.spillFolderPaths});
+        spillFolders.setRequired(false);
+        configs.add(spillFolders);
+
         return configs;
     }
 
@@ -125,23 +273,41 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
     @Override
     public void setStringConfigurationValue(String identifier, String... values) throws IllegalArgumentException {
         if (PartialBinder.Identifier.TEMP_FOLDER_PATH.name().equals(identifier)) {
-            isIllegalArgument(values);
+            isIllegalArgument(Identifier.TEMP_FOLDER_PATH, values[0]);
             this.tempFolderPath = values[0];
         } else if (Identifier.THRESHOLD.name().equals(identifier)) {
-            isIllegalArgument(values);
+            isIllegalArgument(Identifier.THRESHOLD, values[0]);
             this.threshold = Double.parseDouble(values[0]);
         } else if (Identifier.NULL_HANDLING.name().equals(identifier)) {
             this.nullHandling = NullHandling.valueOf(values[0]);
         } else if (Identifier.DUPLICATE_HANDLING.name().equals(identifier)) {
             this.duplicateHandling = DuplicateHandling.valueOf(values[0]);
+        } else if (Identifier.BUCKET_FORMAT.name().equals(identifier)) {
+            this.bucketFormat = BucketFormat.valueOf(values[0]);
+        } else if (Identifier.BUCKET_COMPRESSION.name().equals(identifier)) {
+            this.bucketCompression = BucketCompression.valueOf(values[0]);
+        } else if (Identifier.BUCKET_STORAGE.name().equals(identifier)) {
+            this.bucketStorage = BucketStorage.valueOf(values[0]);
+        } else if (Identifier.NARY_KEY_ENCODING.name().equals(identifier)) {
+            this.naryKeyEncoding = NaryKeyEncoding.valueOf(values[0]);
+        } else if (Identifier.SPILL_POLICY.name().equals(identifier)) {
+            this.spillPolicy = SpillPolicy.valueOf(values[0]);
+        } else if (Identifier.VALIDATION_ENGINE.name().equals(identifier)) {
+            this.validationEngine = ValidationEngine.valueOf(values[0]);
+        } else if (Identifier.SPILL_FOLDER_PATHS.name().equals(identifier)) {
+            String paths = (values.length == 0 || values[0] == null) ? "" : values[0].trim();
+            if (!paths.isEmpty())
+                for (String path : paths.split(File.pathSeparator))
+                    isIllegalArgument(Identifier.SPILL_FOLDER_PATHS, path);
+            this.spillFolderPaths = paths;
 
         } else
             this.handleUnknownConfiguration(identifier, CollectionUtils.concat(values, ","));
     }
 
-    private void isIllegalArgument(String[] values) {
-        if ("".equals(values[0]) || " ".equals(values[0]) || "/".equals(values[0]) || "\\".equals(values[0]) || File.separator.equals(values[0]) || FileUtils.isRoot(new File(values[0])))
-            throw new IllegalArgumentException(Identifier.TEMP_FOLDER_PATH + " must not be \"" + values[0] + "\"");
+    private void isIllegalArgument(Identifier identifier, String value) {
+        if ("".equals(value) || " ".equals(value) || "/".equals(value) || "\\".equals(value) || File.separator.equals(value) || FileUtils.isRoot(new File(value)))
+            throw new IllegalArgumentException(identifier + " must not be \"" + value + "\"");
     }
 
     @Override
@@ -157,12 +323,36 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
         else if (PartialBinder.Identifier.NUM_BUCKETS_PER_COLUMN.name().equals(identifier)) {
             this.numBucketsPerColumn = values[0].intValue();
         }
-        else if (PartialBinder.Identifier.MEMORY_CHECK_FREQUENCY.name().equals(identifier)) {
-            this.memoryCheckFrequency = values[0].intValue();
-        }
         else if (PartialBinder.Identifier.MAX_MEMORY_USAGE_PERCENTAGE.name().equals(identifier)) {
             this.maxMemoryUsagePercentage = values[0].intValue();
         }
+        else if (PartialBinder.Identifier.MEMORY_CHECK_FREQUENCY.name().equals(identifier)) {
+            // Accepted for existing configurations, but ignored, because the memory budget accounts every insertion instead of polling the heap
+        }
+        else if (PartialBinder.Identifier.MAX_DICTIONARY_MEMORY_PERCENTAGE.name().equals(identifier)) {
+            if (values.length > 0)
+                this.maxDictionaryMemoryPercentage = values[0].intValue();
+        }
+        else if (PartialBinder.Identifier.NUM_BUCKETIZER_THREADS.name().equals(identifier)) {
+            if (values.length > 0)
+                this.numBucketizerThreads = values[0].intValue();
+        }
+        else if (PartialBinder.Identifier.NUM_VALIDATION_THREADS.name().equals(identifier)) {
+            if (values.length > 0)
+                this.numValidationThreads = values[0].intValue();
+        }
+        else if (PartialBinder.Identifier.MAX_OFF_HEAP_MEMORY.name().equals(identifier)) {
+            if (values.length > 0)
+                this.maxOffHeapMemory = values[0].intValue();
+        }
+        else if (PartialBinder.Identifier.NUM_REFINEMENT_THREADS.name().equals(identifier)) {
+            if (values.length > 0)
+                this.numRefinementThreads = values[0].intValue();
+        }
+        else if (PartialBinder.Identifier.HEAVY_HITTER_SLOTS.name().equals(identifier)) {
+            if (values.length > 0)
+                this.heavyHitterSlots = values[0].intValue();
+        }
         else
             this.handleUnknownConfiguration(identifier, CollectionUtils.concat(values, ","));
     }
@@ -173,6 +363,26 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
             this.cleanTemp = values[0];
         else if (PartialBinder.Identifier.DETECT_NARY.name().equals(identifier))
             this.detectNary = values[0];
+        else if (PartialBinder.Identifier.INTRA_TABLE_PARALLELISM.name().equals(identifier))
+            this.intraTableParallelism = values[0];
+        else if (PartialBinder.Identifier.INTRA_LEVEL_PARALLELISM.name().equals(identifier))
+            this.intraLevelParallelism = values[0];
+        else if (PartialBinder.Identifier.CANDIDATE_MATRIX.name().equals(identifier))
+            this.candidateMatrix = values[0];
+        else if (PartialBinder.Identifier.ASYNC_SPILLING.name().equals(identifier))
+            this.asyncSpilling = values[0];
+        else if (PartialBinder.Identifier.ADAPTIVE_BUCKETS.name().equals(identifier))
+            this.adaptiveBuckets = values[0];
+        else if (PartialBinder.Identifier.OFF_HEAP_BUCKETS.name().equals(identifier))
+            this.offHeapBuckets = values[0];
+        else if (PartialBinder.Identifier.PRE_PARTITIONING.name().equals(identifier))
+            this.prePartitioning = values[0];
+        else if (PartialBinder.Identifier.COLUMNAR_CACHE.name().equals(identifier))
+            this.columnarCache = values[0];
+        else if (PartialBinder.Identifier.MEMORY_MAPPED_BUCKETS.name().equals(identifier))
+            this.memoryMappedBuckets = values[0];
+        else if (PartialBinder.Identifier.DICTIONARY_ENCODING.name().equals(identifier))
+            this.dictionaryEncoding = values[0];
         else if (PartialBinder.Identifier.FILTER_KEY_FOREIGN_KEYS.name().equals(identifier))
             this.nullIsSubset = values[0];
         else
@@ -200,7 +410,7 @@ public class PartialBinder extends PartialBinderAlgorithm implements RelaxedIncl
     }
 
     public enum Identifier {
-        INPUT_FILES, INPUT_ROW_LIMIT, TEMP_FOLDER_PATH, CLEAN_TEMP, DETECT_NARY, MAX_NARY_LEVEL, FILTER_KEY_FOREIGN_KEYS, NUM_BUCKETS_PER_COLUMN, MEMORY_CHECK_FREQUENCY, MAX_MEMORY_USAGE_PERCENTAGE, THRESHOLD, NULL_HANDLING, DUPLICATE_HANDLING
+        INPUT_FILES, INPUT_ROW_LIMIT, TEMP_FOLDER_PATH, CLEAN_TEMP, DETECT_NARY, MAX_NARY_LEVEL, FILTER_KEY_FOREIGN_KEYS, NUM_BUCKETS_PER_COLUMN, @Deprecated MEMORY_CHECK_FREQUENCY, MAX_MEMORY_USAGE_PERCENTAGE, NUM_BUCKETIZER_THREADS, INTRA_TABLE_PARALLELISM, DICTIONARY_ENCODING, MAX_DICTIONARY_MEMORY_PERCENTAGE, THRESHOLD, NULL_HANDLING, DUPLICATE_HANDLING, BUCKET_FORMAT, MEMORY_MAPPED_BUCKETS, ASYNC_SPILLING, BUCKET_COMPRESSION, BUCKET_STORAGE, SPILL_FOLDER_PATHS, COLUMNAR_CACHE, NARY_KEY_ENCODING, HEAVY_HITTER_SLOTS, ADAPTIVE_BUCKETS, PRE_PARTITIONING, NUM_REFINEMENT_THREADS, SPILL_POLICY, OFF_HEAP_BUCKETS, NUM_VALIDATION_THREADS, INTRA_LEVEL_PARALLELISM, VALIDATION_ENGINE, CANDIDATE_MATRIX, MAX_OFF_HEAP_MEMORY
     }
 
 }
@@ -1,11 +1,21 @@
 package binder.core;
 
+import binder.io.BucketStore;
 import binder.structures.AttributeCombination;
+import binder.structures.MemoryManager;
+import binder.structures.OffHeapArena;
+import binder.structures.ValueDictionary;
 import binder.structures.pINDSingleLinkedList;
+import binder.utils.BucketCompression;
+import binder.utils.BucketFormat;
+import binder.utils.BucketStorage;
 import binder.utils.DuplicateHandling;
 import binder.utils.FileUtils;
+import binder.utils.NaryKeyEncoding;
 import binder.utils.NullHandling;
 import binder.utils.PrintUtils;
+import binder.utils.SpillPolicy;
+import binder.utils.ValidationEngine;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
 import de.metanome.algorithm_integration.ColumnIdentifier;
 import de.metanome.algorithm_integration.ColumnPermutation;
@@ -18,6 +28,7 @@ import de.metanome.algorithm_integration.results.RelaxedInclusionDependency;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 
 
 import java.io.BufferedWriter;
@@ -37,12 +48,35 @@ public class PartialBinderAlgorithm {
     public boolean detectNary = true;
     public int inputRowLimit = -1;
     public int numBucketsPerColumn = 10; // Initial number of buckets per column
-    public int memoryCheckFrequency = 1000; // Number of new, i.e., so far unseen values during bucketing that trigger a memory consumption check
-    public int maxMemoryUsagePercentage = 60; // The algorithm spills to disc if memory usage exceeds X% of available memory
+    public boolean prePartitioning = false; // Write the buckets already split into sub buckets if the size estimate predicts that the validation has to refine them
+    public boolean adaptiveBuckets = false; // Estimate the number of buckets per column from a sample of the input, so that every bucket level fits into memory
+    public int maxMemoryUsagePercentage = 60; // The algorithm spills to disc if the accounted size of its buckets exceeds X% of available memory
+    public boolean offHeapBuckets = false; // Keep the unary buckets in direct memory while the tables are read, so that they neither fill the heap nor burden the garbage collector
+    public int maxOffHeapMemory = 0; // Megabytes of direct memory that the off-heap buckets may fill before they spill; 0 applies the maximum memory usage percentage to the JVM's direct memory limit
+    public SpillPolicy spillPolicy = SpillPolicy.COLUMNS; // Spill all buckets of the largest column or only the largest individual buckets if the unary buckets exceed the memory budget
+    public int heavyHitterSlots = 0; // Number of slots per column in which the unary scan counts the most frequent values outside of the buckets; 0 disables it
+    public int numBucketizerThreads = 1; // Number of tables that are read and bucketized concurrently
+    public int numValidationThreads = 1; // Number of bucket levels whose unary candidates are validated concurrently if memory allows
+    public ValidationEngine validationEngine = ValidationEngine.INVERTED_INDEX; // Validate the unary candidates of a bucket level with an inverted index over its values or with a merge of its sorted bucket files
+    public boolean candidateMatrix = false; // Validate the unary candidates of a single validation thread as a dense bit matrix instead of linked lists if the matrix fits into the memory budget
+    public boolean intraLevelParallelism = false; // Split the values of each bucket level across the validation threads instead of validating several levels at once
+    public int numRefinementThreads = 1; // Number of attributes whose buckets are refined concurrently if a bucket level does not fit into memory
+    public boolean intraTableParallelism = false; // Split the rows of each table across the bucketizer threads instead of bucketizing several tables at once
+    public boolean asyncSpilling = false; // Write spilled buckets on a background thread while the bucketizer continues with fresh buckets
+    public boolean dictionaryEncoding = false; // Replace all values by compact ids of a global value dictionary before bucketing them
+    public int maxDictionaryMemoryPercentage = 20; // The value dictionary stops admitting new values if it exceeds X% of the memory that the algorithm may use
+    public BucketFormat bucketFormat = BucketFormat.TEXT; // The on-disk format of the bucket files; BINARY stores length-prefixed UTF-8 values with varint counts
+    public boolean memoryMappedBuckets = false; // Read bucket files through memory-mapped regions of at most 64 MB instead of buffered streams; every open reader holds one region until it is closed
+    public BucketCompression bucketCompression = BucketCompression.NONE; // The codec for all bucket files; compressed buckets are never memory-mapped
+    public BucketStorage bucketStorage = BucketStorage.FILES; // Store every bucket in its own files or all buckets in a few large segment files
+    public boolean columnarCache = false; // Write an encoded copy of every table with one file per column during the unary scan and read the n-ary levels from it
+    public NaryKeyEncoding naryKeyEncoding = NaryKeyEncoding.CONCATENATED; // Store n-ary tuples as '#'-separated values or as 128-bit fingerprints of their values
+    public String spillFolderPaths = ""; // Folders, separated by the platform's path separator, across which the buckets are striped; empty to spill into the temp folder
     public int numColumns;
     public long availableMemory;
     public long maxMemoryUsage;
     public File tempFolder = null;
+    public List<File> spillFolders = new ArrayList<>();
     public int numUnaryINDs = 0;
     public int numNaryINDs = 0;
     public BitSet nullValueColumns;
@@ -63,7 +97,16 @@ public class PartialBinderAlgorithm {
     public ArrayList<Long> columnSizes = null;
     protected boolean nullIsSubset = false;
     protected int maxNaryLevel = -1;
-    Int2ObjectOpenHashMap<List<Map<String, Long>>> attribute2subBucketsCache = null;
+    Int2ObjectOpenHashMap<List<Object2LongOpenHashMap<String>>> attribute2subBucketsCache = null;
+    long attribute2subBucketsCacheSize = 0;
+    int attribute2subBucketsCacheOffset = 0; // The sub bucket number of the first cached sub bucket
+    int numPrePartitions = 1; // The number of sub buckets into which the buckets of the current phase are written; 1 if they are not pre-partitioned
+    MemoryManager memoryManager = null;
+    OffHeapArena offHeapArena = null; // Provides the memory of the unary buckets if they are kept off-heap; dropped after the unary bucketizing
+    MemoryManager offHeapMemoryManager = null; // Accounts the off-heap buckets against the direct memory instead of the heap
+    BucketStore bucketStore = null;
+    ValueDictionary valueDictionary = null;
+    File columnarCacheFolder = null;
     int[] tableColumnStartIndexes = null;
     List<String> columnNames = null;
     int[] column2table = null;
@@ -116,6 +159,8 @@ public class PartialBinderAlgorithm {
             /////////////////////////////////////////////////////////
             if (this.detectNary)
                 this.detectNaryViaBucketing(validator);
+            // The n-ary detection encodes the attribute combinations with the same dictionary as the unary buckets, so it is released only now
+            this.valueDictionary = null;
 
             //////////////////////////////////////////////////////
             // Phase 4: Output (Return and/or write the results //
@@ -129,8 +174,14 @@ public class PartialBinderAlgorithm {
             throw new IOException(e.getMessage());
         } finally {
             // Clean temp
-            if (this.cleanTemp)
+            FileUtils.close(this.bucketStore);
+            if (this.cleanTemp) {
+                for (File spillFolder : this.spillFolders)
+                    FileUtils.cleanDirectory(spillFolder);
                 FileUtils.cleanDirectory(this.tempFolder);
+                if (this.columnarCacheFolder != null)
+                    FileUtils.deleteDirectory(this.columnarCacheFolder);
+            }
         }
     }
 
@@ -138,7 +189,7 @@ public class PartialBinderAlgorithm {
     private void detectNaryViaBucketing(Validator validator) throws IOException, InputIterationException {
         // Clean temp
         if (this.cleanTemp)
-            FileUtils.cleanDirectory(this.tempFolder);
+            this.bucketStore.clear();
 
         // N-ary column combinations are enumerated following the enumeration of the attributes
         int naryOffset = this.numColumns;
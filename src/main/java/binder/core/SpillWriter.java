@@ -0,0 +1,132 @@
+package binder.core;
+
+import binder.structures.MemoryManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes spilled buckets to disk and releases their memory afterwards. In asynchronous mode, a background thread serializes the spilled buckets
+ * while the bucketizer continues with fresh buckets; at most {@link #MAX_PENDING_SPILLS} spills can be pending, so a bucketizer that spills
+ * faster than the disk can write is throttled. All spills of one writer are written in the order in which they were handed over.
+ */
+class SpillWriter implements Closeable {
+
+    private static final int MAX_PENDING_SPILLS = 2; // One spill being written and one waiting, i.e., double buffering
+
+    @FunctionalInterface
+    interface BucketWrite {
+        void write() throws IOException;
+    }
+
+    private final PartialBinderAlgorithm binder;
+    private final MemoryManager memoryManager;
+    private final ExecutorService executor;
+    private final Semaphore pendingSpills = new Semaphore(MAX_PENDING_SPILLS);
+    private final AtomicLong pendingBytes = new AtomicLong(0);
+    private volatile Throwable failure = null;
+
+    SpillWriter(PartialBinderAlgorithm binder) {
+        this(binder, binder.memoryManager);
+    }
+
+    /**
+     * @param memoryManager the budget that the spilled buckets were reserved against
+     */
+    SpillWriter(PartialBinderAlgorithm binder, MemoryManager memoryManager) {
+        this.binder = binder;
+        this.memoryManager = memoryManager;
+        this.executor = binder.asyncSpilling ? Executors.newSingleThreadExecutor(runnable -> {
+            // A bucketizer that fails without closing its writer must not keep the JVM alive
+            Thread thread = new Thread(runnable, "binder-spill-writer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Writes the spilled buckets, which the caller must no longer modify, and releases the given number of bytes from the memory budget once they
+     * are on disk.
+     */
+    void spill(long bytes, BucketWrite write) throws IOException {
+        this.checkFailure();
+
+        if (this.executor == null) {
+            write.write();
+            this.memoryManager.release(bytes);
+            return;
+        }
+
+        try {
+            this.pendingSpills.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a pending spill", e);
+        }
+        this.pendingBytes.addAndGet(bytes);
+        this.executor.execute(() -> {
+            try {
+                if (this.failure == null)
+                    write.write();
+            } catch (Throwable t) {
+                this.failure = t;
+            } finally {
+                this.memoryManager.release(bytes);
+                this.pendingBytes.addAndGet(-bytes);
+                this.pendingSpills.release();
+            }
+        });
+    }
+
+    /**
+     * @return true if the memory budget is exceeded even if all pending spills are counted as written, i.e., the caller should spill more
+     */
+    boolean isBudgetExceeded() {
+        return this.getExcess() > 0;
+    }
+
+    /**
+     * @return the number of bytes by which the memory budget is exceeded if all pending spills are counted as written; negative if it is not
+     */
+    long getExcess() {
+        return this.memoryManager.getUsed() - this.pendingBytes.get() - this.memoryManager.getBudget();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = this.failure;
+        if (t == null)
+            return;
+        if (t instanceof IOException ioException)
+            throw ioException;
+        if (t instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (t instanceof Error error)
+            throw error;
+        throw new IOException(t);
+    }
+
+    /**
+     * Waits until all pending spills are written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            try {
+                while (!this.executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // Keep waiting, because the spilled buckets must be complete before they are read
+                }
+            } catch (InterruptedException e) {
+                this.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the pending spills", e);
+            }
+        }
+        this.checkFailure();
+    }
+}
@@ -1,23 +1,49 @@
 package binder.core;
 
+import binder.io.BucketReader;
 import binder.structures.AttributeCombination;
+import binder.structures.AttributeGroupIndex;
+import binder.structures.CandidateMatrix;
 import binder.structures.pINDSingleLinkedList;
 import binder.utils.DuplicateHandling;
+import binder.utils.FileUtils;
+import binder.utils.ValidationEngine;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntListIterator;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 
 import java.io.IOException;
+import java.io.Serial;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 
 public class Validator {
 
+    // The candidate matrix may take at most this fraction of the memory budget, which the bucket levels need as well
+    private static final int MAX_CANDIDATE_MATRIX_FRACTION = 8;
+    // The merges of the sort-merge engine may open at most this many bucket files at the same time; levels beyond it use the inverted index
+    private static final int MAX_MERGE_READERS = 512;
+
     private final ArrayList<Long> columnSizes;
     private final double threshold;
     int numColumns;
     BitSet activeAttributes;
     List<AttributeCombination> attributeCombinations;
+    // If set, exhausted candidates are only marked by their violation counters, because other levels are validated concurrently
+    private boolean concurrentLevels = false;
+    // If set, the values of each (sub) bucket level are validated by the tasks of this pool
+    private ForkJoinPool valueGroupPool = null;
+    // The inverted indexes that are reused by the (sub) bucket levels; the concurrent levels take one each
+    private final Deque<AttributeGroupIndex> indexPool = new ArrayDeque<>();
+    // If set, the matrix replaces the candidate lists while the levels are validated one by one
+    private CandidateMatrix candidateMatrix = null;
+    private long[] groupMask = null;
 
     PartialBinderAlgorithm binder;
 
@@ -74,12 +100,17 @@ public class Validator {
                 if (activeAttributeCombinations.isEmpty()) return;
 
                 // Load next bucket level as two stage index
-                Int2ObjectOpenHashMap<Map<String, Long>> attributeCombination2Bucket = new Int2ObjectOpenHashMap<>();
+                Int2ObjectOpenHashMap<Object2LongOpenHashMap<String>> attributeCombination2Bucket = new Int2ObjectOpenHashMap<>();
                 Map<String, IntArrayList> invertedIndex = new HashMap<>();
+                IntArrayList attributeNumbers = new IntArrayList(activeAttributeCombinations.cardinality());
                 for (int attributeCombination = activeAttributeCombinations.nextSetBit(0); attributeCombination >= 0; attributeCombination =
-                        activeAttributeCombinations.nextSetBit(attributeCombination + 1)) {
+                        activeAttributeCombinations.nextSetBit(attributeCombination + 1))
+                    attributeNumbers.add(naryOffset + attributeCombination);
+                List<Object2LongOpenHashMap<String>> buckets = Bucketizer.readBuckets(binder, attributeNumbers, bucketNumber, subBucketNumber);
+                for (int i = 0; i < attributeNumbers.size(); i++) {
+                    int attributeCombination = attributeNumbers.getInt(i) - naryOffset;
                     // Build the index
-                    Map<String, Long> bucket = Bucketizer.readBucketAsList(binder, naryOffset + attributeCombination, bucketNumber, subBucketNumber);
+                    Object2LongOpenHashMap<String> bucket = buckets.get(i);
                     attributeCombination2Bucket.put(attributeCombination, bucket);
                     // Build the inverted index
                     for (String value : bucket.keySet()) {
@@ -120,12 +151,12 @@ public class Validator {
      * @param attributeCombinationGroup   ids of the attributes sharing the given value
      * @param attributeCombination2Bucket maps the id of an attribute to the bucket associated with that attribute
      */
-    private void prune(String value, Map<AttributeCombination, List<AttributeCombination>> naryDep2ref, IntArrayList attributeCombinationGroup, Int2ObjectOpenHashMap<Map<String,
-            Long>> attributeCombination2Bucket) {
+    private void prune(String value, Map<AttributeCombination, List<AttributeCombination>> naryDep2ref, IntArrayList attributeCombinationGroup,
+                       Int2ObjectOpenHashMap<Object2LongOpenHashMap<String>> attributeCombination2Bucket) {
         // iterate over dependent attributes which contain the given value
         for (int dependant : attributeCombinationGroup) {
             // get number of occurrences in attribute combination
-            long occurrences = attributeCombination2Bucket.get(dependant).get(value);
+            long occurrences = attributeCombination2Bucket.get(dependant).getLong(value);
 
             // if the attribute in the attributeCombinationGroup is not only a referenced attribute, we continue with the next one
             if (!naryDep2ref.containsKey(this.attributeCombinations.get(dependant))) {
@@ -150,116 +181,579 @@ public class Validator {
 
     /**
      * All attributes that share a value form an attribute group. This method prunes the existing attribute refs by
-     * removing all references fom each attribute which have no more validations left.
+     * charging the violations to all references that the group does not contain. Exhausted references are only marked by their
+     * violation counters and unlinked by the caller, so that the lists are walked without iterators.
      *
      * @param attribute2Refs Map from attribute index to referenced attributes
-     * @param attributeGroup List of attribute indices that share a value
+     * @param group          the group of the value in the index
      */
-    private void prune(String value, Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, IntArrayList attributeGroup,
-                       Int2ObjectOpenHashMap<Map<String, Long>> attribute2Bucket) {
+    private void prune(String value, Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, long group, AttributeGroupIndex index) {
         // iterate over every attribute which is in the attribute group
-        for (int dependant : attributeGroup) {
-            // get occurrences of value in current attribute
-            long occurrences = attribute2Bucket.get(dependant).get(value);
+        for (int member = index.nextMember(group, 0); member != -1; member = index.nextMember(group, member + 1)) {
+            int dependant = index.getAttribute(member);
+
+            // get occurrences of value in current attribute; in an unaware setting, we only care about distinct violations
+            long violations = (binder.duplicateHandling == DuplicateHandling.AWARE) ? index.getBucket(dependant).getLong(value) : 1;
 
             // for each possible pIND
+            for (pINDSingleLinkedList.pINDElement pINDCandidate = attribute2Refs.get(dependant).getFirst(); pINDCandidate != null; pINDCandidate = pINDCandidate.next) {
+                // skip candidates that are already exhausted
+                if (isExhausted(pINDCandidate))
+                    continue;
+
+                // for every pINDCandidate we check if the value is also present; if not, the open violations get decreased
+                if (!index.contains(group, pINDCandidate.referenced))
+                    subtractViolations(pINDCandidate, violations);
+            }
+        }
+    }
+
+    /**
+     * Prunes the candidates of an attribute group like {@link #prune(String, Int2ObjectOpenHashMap, IntArrayList, Int2ObjectOpenHashMap)}, but with
+     * the members of the group and the occurrences of the value given per attribute index instead of the buckets.
+     */
+    private void prune(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, IntArrayList attributeGroup, boolean[] inGroup, long[] occurrences) {
+        for (int dependant : attributeGroup) {
+            // in an unaware setting, we only care about distinct violations
+            long violations = (binder.duplicateHandling == DuplicateHandling.AWARE) ? occurrences[dependant] : 1;
+
             pINDSingleLinkedList.pINDIterator referencedAttributes = attribute2Refs.get(dependant).elementIterator();
             while (referencedAttributes.hasNext()) {
                 pINDSingleLinkedList.pINDElement pINDCandidate = referencedAttributes.next();
-                // for every pINDCandidate we check if the value is also present
-                if (!attribute2Bucket.get(pINDCandidate.referenced).containsKey(value)) {
+                if (isExhausted(pINDCandidate) || inGroup[pINDCandidate.referenced])
+                    continue;
 
-                    // if it is not present the open violations get decreased by the number of occurrences of the value
-                    if (binder.duplicateHandling == DuplicateHandling.AWARE) {
-                        pINDCandidate.violationsLeft -= occurrences;
-                    } else {
-                        // in an unaware setting, we only care about distinct violations
-                        pINDCandidate.violationsLeft -= 1;
-                    }
-
-                    // if there should not be any violations left, we remove the attribute from the pINDCandidate attributes-
-                    if (pINDCandidate.violationsLeft < 0L) {
-                        referencedAttributes.remove();
-                    }
-                }
+                if ((subtractViolations(pINDCandidate, violations) < 0L) && !this.concurrentLevels)
+                    referencedAttributes.remove();
             }
         }
     }
 
+    /**
+     * Subtracts the violations from the candidate, atomically only if other levels are validated concurrently.
+     *
+     * @return the violations that are left afterwards
+     */
+    private long subtractViolations(pINDSingleLinkedList.pINDElement pINDCandidate, long violations) {
+        return this.concurrentLevels ? pINDCandidate.subtractViolationsAtomically(violations) : pINDCandidate.subtractViolations(violations);
+    }
+
+    private boolean isExhausted(pINDSingleLinkedList.pINDElement pINDCandidate) {
+        return (this.concurrentLevels ? pINDCandidate.getViolationsLeftAcquire() : pINDCandidate.violationsLeft) < 0L;
+    }
+
     /**
      * @param attribute2Refs A Map with attribute indices as keys and lists of referenced attributes by the key attribute.
      * @throws IOException if a (sub)bucket can not be found on disk.
      */
     private void discoverUnary(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
-        for (int bucketNumber : binder.bucketComparisonOrder) {
-            // Refine the current bucket level if it does not fit into memory at once
-            int[] subBucketNumbers = Bucketizer.refineBucketLevel(binder, activeAttributes, 0, bucketNumber);
+        if (binder.validationEngine == ValidationEngine.SORT_MERGE) {
+            discoverUnaryBySortMerge(attribute2Refs);
+            return;
+        }
+        if ((binder.numValidationThreads > 1) && !binder.intraLevelParallelism) {
+            discoverUnaryConcurrently(attribute2Refs);
+            return;
+        }
 
-            for (int subBucketNumber : subBucketNumbers) {
-                // update all currently active attributes
-                updateActiveAttributesFromLists(attribute2Refs);
+        if (binder.numValidationThreads > 1)
+            this.valueGroupPool = new ForkJoinPool(binder.numValidationThreads);
+        else if (binder.candidateMatrix && (CandidateMatrix.sizeOf(numColumns) <= binder.maxMemoryUsage / MAX_CANDIDATE_MATRIX_FRACTION))
+            toCandidateMatrix(attribute2Refs);
+        try {
+            discoverUnaryLevelByLevel(attribute2Refs);
+            if (this.candidateMatrix != null)
+                applyCandidateMatrix(attribute2Refs);
+        } finally {
+            if (this.valueGroupPool != null)
+                this.valueGroupPool.shutdownNow();
+            this.valueGroupPool = null;
+            this.candidateMatrix = null;
+            this.groupMask = null;
+            this.indexPool.clear();
+        }
+    }
 
-                // safe the number of attributes which are still active in this bucket.
-                // This number will always be smaller than the previous in the list
-                binder.activeAttributesPerBucketLevel.add(activeAttributes.cardinality());
+    private void discoverUnaryLevelByLevel(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
+        for (int bucketNumber : binder.bucketComparisonOrder)
+            if (!validateLevel(bucketNumber, attribute2Refs)) return;
+    }
 
-                // If there are no more active attributes, all pINDs have been found.
-                if (activeAttributes.isEmpty()) return;
+    /**
+     * Validates the sub bucket levels of the given bucket level one by one with the inverted index.
+     *
+     * @return false if there are no more active attributes, i.e., all pINDs have been found
+     */
+    private boolean validateLevel(int bucketNumber, Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
+        // Refine the current bucket level if it does not fit into memory at once
+        int[] subBucketNumbers = Bucketizer.refineBucketLevel(binder, activeAttributes, 0, bucketNumber);
+
+        for (int subBucketNumber : subBucketNumbers) {
+            // update all currently active attributes
+            if (this.candidateMatrix != null)
+                updateActiveAttributesFromMatrix();
+            else
+                updateActiveAttributesFromLists(attribute2Refs);
 
-                // the attribute2bucket Map take the attribute index as a key and returns the buckets values
-                Int2ObjectOpenHashMap<Map<String, Long>> attribute2Bucket = new Int2ObjectOpenHashMap<>(numColumns);
+            // safe the number of attributes which are still active in this bucket.
+            // This number will always be smaller than the previous in the list
+            binder.activeAttributesPerBucketLevel.add(activeAttributes.cardinality());
 
-                // the invertedIndex stores in which buckets each value exists
-                Map<String, IntArrayList> invertedIndex = new HashMap<>();
+            // If there are no more active attributes, all pINDs have been found.
+            if (activeAttributes.isEmpty()) return false;
 
+            // the inverted index stores in which buckets each value exists; it is reused by all levels
+            AttributeGroupIndex index = takeIndex();
+            try {
                 // load the entire sub-bucket into the inverted index
-                loadSubBucket(bucketNumber, subBucketNumber, attribute2Bucket, invertedIndex);
+                loadSubBucket(bucketNumber, subBucketNumber, index);
 
                 // validate the attributes using the bucket values
-                validateSubBucket(attribute2Refs, attribute2Bucket, invertedIndex);
+                if (this.valueGroupPool != null) {
+                    validateSubBucketInParallel(attribute2Refs, index);
+                } else if (this.candidateMatrix != null) {
+                    validateSubBucket(index);
+                } else {
+                    validateSubBucket(attribute2Refs, index);
+                    removeViolated(attribute2Refs);
+                }
+            } finally {
+                returnIndex(index);
             }
         }
+        return true;
     }
 
-    private void loadSubBucket(int bucketNumber, int subBucketNumber, Int2ObjectOpenHashMap<Map<String, Long>> attribute2Bucket, Map<String, IntArrayList> invertedIndex) throws IOException {
-        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
-            // load the bucket of the active attribute
-            Map<String, Long> bucket = Bucketizer.readBucketAsList(binder, attribute, bucketNumber, subBucketNumber);
-            attribute2Bucket.put(attribute, bucket);
+    /**
+     * Validates several (sub) bucket levels at once. The levels partition the values, so their validations only share the violation counters of the
+     * candidates, which are decremented atomically; exhausted candidates are only marked by their counters and unlinked after each round of
+     * concurrent levels, which is also when the active attributes are updated. A round holds as many levels as threads and memory allow. Sub
+     * buckets that the refinement keeps in the cache are validated alone, because the cache only holds the sub buckets of one level.
+     */
+    private void discoverUnaryConcurrently(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(binder.numValidationThreads);
+        this.concurrentLevels = true;
+        try {
+            List<int[]> round = new ArrayList<>(binder.numValidationThreads);
+            for (int bucketNumber : binder.bucketComparisonOrder) {
+                // Refine the current bucket level if it does not fit into memory at once
+                int[] subBucketNumbers = Bucketizer.refineBucketLevel(binder, activeAttributes, 0, bucketNumber);
+                boolean cached = binder.attribute2subBucketsCache != null;
+
+                for (int subBucketNumber : subBucketNumbers) {
+                    int[] level = { bucketNumber, subBucketNumber };
+                    if (cached) {
+                        if (!validateRound(executor, attribute2Refs, List.of(level))) return;
+                        continue;
+                    }
 
-            // Build the inverted index
-            addBucketToIndex(invertedIndex, attribute, bucket);
+                    round.add(level);
+                    if (round.size() >= getNumConcurrentLevels(subBucketNumbers.length)) {
+                        if (!validateRound(executor, attribute2Refs, round)) return;
+                        round = new ArrayList<>(binder.numValidationThreads);
+                    }
+                }
+            }
+            if (!round.isEmpty())
+                validateRound(executor, attribute2Refs, round);
+        } finally {
+            this.concurrentLevels = false;
+            executor.shutdownNow();
         }
     }
 
-    private void validateSubBucket(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, Int2ObjectOpenHashMap<Map<String, Long>> attribute2Bucket, Map<String,
-            IntArrayList> invertedIndex) {
+    /**
+     * Validates each bucket level with a merge of the sorted bucket files of its active attributes instead of an inverted index, so that only the
+     * current entry of every attribute is held in memory and no level needs to be refined. With several validation threads, the levels are merged
+     * concurrently in rounds of one level per thread, because they need no memory beyond their readers.
+     * <p>
+     * Every merge opens one file per run and pre-partition of each active attribute, so the merges of a round may open at most
+     * {@link #MAX_MERGE_READERS} files; rounds hold fewer levels if needed, and a level that alone would exceed the limit is validated with the
+     * inverted index instead.
+     */
+    private void discoverUnaryBySortMerge(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
+        try {
+            if (binder.numValidationThreads <= 1) {
+                for (int bucketNumber : binder.bucketComparisonOrder) {
+                    updateActiveAttributesFromLists(attribute2Refs);
+                    if (getNumMergeReaders() > MAX_MERGE_READERS) {
+                        if (!validateLevel(bucketNumber, attribute2Refs)) return;
+                        continue;
+                    }
+                    binder.activeAttributesPerBucketLevel.add(activeAttributes.cardinality());
+                    if (activeAttributes.isEmpty()) return;
+
+                    mergeLevel(bucketNumber, attribute2Refs);
+                }
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(binder.numValidationThreads);
+            this.concurrentLevels = true;
+            try {
+                List<int[]> round = new ArrayList<>(binder.numValidationThreads);
+                for (int bucketNumber : binder.bucketComparisonOrder) {
+                    // The active attributes only shrink, so the readers of the current ones bound those of the next round
+                    int numMergeReaders = getNumMergeReaders();
+                    if (numMergeReaders > MAX_MERGE_READERS) {
+                        if ((!round.isEmpty()) && (!validateRound(executor, attribute2Refs, round))) return;
+                        round = new ArrayList<>(binder.numValidationThreads);
+                        updateActiveAttributesFromLists(attribute2Refs);
+                        if (!validateLevel(bucketNumber, attribute2Refs)) return;
+                        continue;
+                    }
+
+                    round.add(new int[]{ bucketNumber, -1 });
+                    if (round.size() >= Math.min(binder.numValidationThreads, MAX_MERGE_READERS / Math.max(1, numMergeReaders))) {
+                        if (!validateRound(executor, attribute2Refs, round)) return;
+                        round = new ArrayList<>(binder.numValidationThreads);
+                    }
+                }
+                if (!round.isEmpty())
+                    validateRound(executor, attribute2Refs, round);
+            } finally {
+                this.concurrentLevels = false;
+                executor.shutdownNow();
+            }
+        } finally {
+            this.indexPool.clear();
+        }
+    }
+
+    /**
+     * @return an upper bound of the bucket files that the merge of one level opens for the active attributes, because a bucket has at most one run
+     * per spill of its attribute plus the final one
+     */
+    private int getNumMergeReaders() {
+        long numReaders = 0;
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute))
+            numReaders = numReaders + (long) (binder.spillCounts[attribute] + 1) * binder.numPrePartitions;
+        return (int) Math.min(Integer.MAX_VALUE, numReaders);
+    }
+
+    /**
+     * Merges the sorted buckets of all active attributes in the given level. All attributes whose current values equal the smallest current value
+     * form the group of that value, which prunes the candidates as the inverted index would; then their readers advance.
+     */
+    private void mergeLevel(int bucketNumber, Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) throws IOException {
+        List<AttributeCursor> cursors = new ArrayList<>(activeAttributes.cardinality());
+        PriorityQueue<AttributeCursor> queue = new PriorityQueue<>(Math.max(1, activeAttributes.cardinality()),
+                (cursor1, cursor2) -> cursor1.reader.getValue().compareTo(cursor2.reader.getValue()));
+        try {
+            for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
+                BucketReader reader = Bucketizer.getBucketReader(binder, attribute, bucketNumber);
+                if (reader == null) continue;
+
+                AttributeCursor cursor = new AttributeCursor(attribute, reader);
+                cursors.add(cursor);
+                if (reader.next())
+                    queue.add(cursor);
+            }
+
+            IntArrayList attributeGroup = new IntArrayList();
+            boolean[] inGroup = new boolean[numColumns];
+            long[] occurrences = new long[numColumns];
+            while (!queue.isEmpty()) {
+                // Collect the attributes that contain the smallest value; the value of a bucket is copied before its reader advances
+                String value = queue.peek().reader.getValue();
+                do {
+                    AttributeCursor cursor = queue.poll();
+                    attributeGroup.add(cursor.attribute);
+                    inGroup[cursor.attribute] = true;
+                    occurrences[cursor.attribute] = cursor.reader.getCount();
+                    if (cursor.reader.next())
+                        queue.add(cursor);
+                } while ((!queue.isEmpty()) && queue.peek().reader.getValue().equals(value));
+
+                prune(attribute2Refs, attributeGroup, inGroup, occurrences);
+
+                for (int attribute : attributeGroup)
+                    inGroup[attribute] = false;
+                attributeGroup.clear();
+            }
+        } finally {
+            for (AttributeCursor cursor : cursors)
+                FileUtils.close(cursor.reader);
+        }
+    }
+
+    private static class AttributeCursor {
+
+        private final int attribute;
+        private final BucketReader reader;
+
+        AttributeCursor(int attribute, BucketReader reader) {
+            this.attribute = attribute;
+            this.reader = reader;
+        }
+    }
+
+    /**
+     * @return the number of (sub) bucket levels whose buckets fit into memory at the same time, but at most the number of validation threads
+     */
+    private int getNumConcurrentLevels(int numSubBuckets) {
+        long levelSize = 0;
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute))
+            levelSize = levelSize + columnSizes.get(attribute) / binder.numBucketsPerColumn;
+        // Every concurrent level loads its own attribute group index
+        levelSize = levelSize + AttributeGroupIndex.sizeOfGroups(activeAttributes.cardinality(), levelSize);
+        long subBucketLevelSize = Math.max(1, levelSize / numSubBuckets);
+        return (int) Math.max(1, Math.min(binder.numValidationThreads, binder.maxMemoryUsage / subBucketLevelSize));
+    }
+
+    /**
+     * Validates the given (sub) bucket levels concurrently with the currently active attributes and unlinks the exhausted candidates afterwards.
+     *
+     * @param levels pairs of bucket and sub bucket numbers
+     * @return false if there are no more active attributes, i.e., all pINDs have been found
+     */
+    private boolean validateRound(ExecutorService executor, Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, List<int[]> levels) throws IOException {
+        // update all currently active attributes; they stay the same for all levels of this round
+        updateActiveAttributesFromLists(attribute2Refs);
+        for (int i = 0; i < levels.size(); i++)
+            binder.activeAttributesPerBucketLevel.add(activeAttributes.cardinality());
+        if (activeAttributes.isEmpty()) return false;
+
+        List<Future<?>> validations = new ArrayList<>(levels.size());
+        for (int[] level : levels) {
+            validations.add(executor.submit(() -> {
+                if (binder.validationEngine == ValidationEngine.SORT_MERGE) {
+                    mergeLevel(level[0], attribute2Refs);
+                    return null;
+                }
+                AttributeGroupIndex index = takeIndex();
+                try {
+                    loadSubBucket(level[0], level[1], index);
+                    validateSubBucket(attribute2Refs, index);
+                } finally {
+                    returnIndex(index);
+                }
+                return null;
+            }));
+        }
+        Bucketizer.awaitAll(validations);
+
+        for (pINDSingleLinkedList refs : attribute2Refs.values())
+            refs.removeViolated();
+        return true;
+    }
+
+    private AttributeGroupIndex takeIndex() {
+        synchronized (this.indexPool) {
+            AttributeGroupIndex index = this.indexPool.pollFirst();
+            return (index != null) ? index : new AttributeGroupIndex(numColumns);
+        }
+    }
+
+    private void returnIndex(AttributeGroupIndex index) {
+        index.release();
+        synchronized (this.indexPool) {
+            this.indexPool.addFirst(index);
+        }
+    }
+
+    /**
+     * Unlinks the exhausted candidates of the active attributes.
+     */
+    private void removeViolated(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) {
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute))
+            attribute2Refs.get(attribute).removeViolated();
+    }
+
+    private void loadSubBucket(int bucketNumber, int subBucketNumber, AttributeGroupIndex index) throws IOException {
+        IntArrayList attributes = new IntArrayList();
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute))
+            attributes.add(attribute);
+
+        // load the buckets of all active attributes at once, so that they can be read from different spill folders concurrently; then build the
+        // inverted index
+        index.load(attributes, Bucketizer.readBuckets(binder, attributes, bucketNumber, subBucketNumber, index::takeBucket));
+    }
+
+    private void validateSubBucket(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, AttributeGroupIndex index) {
         for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
             // iteration over the values of the attribute
-            for (String value : attribute2Bucket.get(attribute).keySet()) {
+            for (String value : index.getBucket(attribute).keySet()) {
 
                 // Break if the attribute does not reference any other attribute
                 if (attribute2Refs.get(attribute).isEmpty()) break;
 
                 // Continue if the current value has already been handled
-                if (!invertedIndex.containsKey(value)) continue;
+                long group = index.getGroup(value);
+                if (group == 0) continue;
 
                 // Prune using the group of attributes containing the current value
-                IntArrayList sameValueGroup = invertedIndex.get(value);
-                prune(value, attribute2Refs, sameValueGroup, attribute2Bucket);
+                prune(value, attribute2Refs, group, index);
 
                 // Remove the current value from the index as it has now been handled
-                invertedIndex.remove(value);
+                index.removeGroup(value);
+            }
+        }
+    }
+
+    /**
+     * Validates one (sub) bucket level like {@link #validateSubBucket(Int2ObjectOpenHashMap, AttributeGroupIndex)}, but against the candidate
+     * matrix: the group of every value becomes a bit mask over all attributes, against which the rows of its members are pruned word by word.
+     */
+    private void validateSubBucket(AttributeGroupIndex index) {
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
+            for (String value : index.getBucket(attribute).keySet()) {
+                // Break if the attribute does not reference any other attribute
+                if (this.candidateMatrix.isEmpty(attribute)) break;
+
+                // Continue if the current value has already been handled
+                long group = index.getGroup(value);
+                if (group == 0) continue;
+                index.removeGroup(value);
+
+                for (int member = index.nextMember(group, 0); member != -1; member = index.nextMember(group, member + 1)) {
+                    int dependant = index.getAttribute(member);
+                    this.groupMask[dependant >>> 6] = this.groupMask[dependant >>> 6] | (1L << dependant);
+                }
+
+                for (int member = index.nextMember(group, 0); member != -1; member = index.nextMember(group, member + 1)) {
+                    int dependant = index.getAttribute(member);
+                    if (this.candidateMatrix.isEmpty(dependant)) continue;
+
+                    // in an unaware setting, we only care about distinct violations
+                    long violations = (binder.duplicateHandling == DuplicateHandling.AWARE) ? index.getBucket(dependant).getLong(value) : 1;
+                    this.candidateMatrix.prune(dependant, this.groupMask, violations);
+                }
+
+                for (int member = index.nextMember(group, 0); member != -1; member = index.nextMember(group, member + 1))
+                    this.groupMask[index.getAttribute(member) >>> 6] = 0L;
+            }
+        }
+    }
+
+    private void toCandidateMatrix(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) {
+        this.candidateMatrix = new CandidateMatrix(numColumns);
+        this.groupMask = new long[CandidateMatrix.numWordsFor(numColumns)];
+        for (int dependant : attribute2Refs.keySet()) {
+            pINDSingleLinkedList.pINDIterator referencedAttributes = attribute2Refs.get(dependant).elementIterator();
+            while (referencedAttributes.hasNext()) {
+                pINDSingleLinkedList.pINDElement pINDCandidate = referencedAttributes.next();
+                this.candidateMatrix.add(dependant, pINDCandidate.referenced, pINDCandidate.violationsLeft);
             }
         }
     }
 
-    private void addBucketToIndex(Map<String, IntArrayList> invertedIndex, int attribute, Map<String, Long> bucket) {
-        for (String value : bucket.keySet()) {
-            if (!invertedIndex.containsKey(value)) {
-                invertedIndex.put(value, new IntArrayList());
+    /**
+     * Unlinks the candidates that the matrix has removed and copies the violations that the others have left into their list elements.
+     */
+    private void applyCandidateMatrix(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs) {
+        for (int dependant : attribute2Refs.keySet()) {
+            pINDSingleLinkedList.pINDIterator referencedAttributes = attribute2Refs.get(dependant).elementIterator();
+            while (referencedAttributes.hasNext()) {
+                pINDSingleLinkedList.pINDElement pINDCandidate = referencedAttributes.next();
+                if (this.candidateMatrix.contains(dependant, pINDCandidate.referenced))
+                    pINDCandidate.violationsLeft = this.candidateMatrix.getViolationsLeft(dependant, pINDCandidate.referenced);
+                else
+                    referencedAttributes.remove();
             }
-            invertedIndex.get(value).add(attribute);
+        }
+    }
+
+    /**
+     * Validates one (sub) bucket level with its values split across the tasks of the fork-join pool. The candidates of the active attributes are
+     * numbered, every task sums up the violations per candidate number in its own array, and the arrays are added up as the tasks join. Only then
+     * are the violation counters of the candidates decremented and the exhausted candidates unlinked, so the tasks share no mutable state. Candidates
+     * are not pruned while the level is validated, which changes how far their counters drop but not which candidates are exhausted.
+     */
+    private void validateSubBucketInParallel(Int2ObjectOpenHashMap<pINDSingleLinkedList> attribute2Refs, AttributeGroupIndex index) {
+        // Number the candidates in the order of the attributes and their lists
+        int[][] attribute2Candidates = new int[numColumns][];
+        IntArrayList candidate2Referenced = new IntArrayList();
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
+            IntArrayList candidates = new IntArrayList();
+            pINDSingleLinkedList.pINDIterator referencedAttributes = attribute2Refs.get(attribute).elementIterator();
+            while (referencedAttributes.hasNext()) {
+                candidates.add(candidate2Referenced.size());
+                candidate2Referenced.add(referencedAttributes.next().referenced);
+            }
+            attribute2Candidates[attribute] = candidates.toIntArray();
+        }
+        if (candidate2Referenced.isEmpty()) return;
+
+        String[] values = index.getValues().toArray(new String[0]);
+        int maxValuesPerTask = Math.max(1, values.length / (4 * this.valueGroupPool.getParallelism()));
+        long[] violations = this.valueGroupPool.invoke(new ValueGroupValidation(values, 0, values.length, maxValuesPerTask, index, attribute2Candidates,
+                candidate2Referenced.toIntArray(), binder.duplicateHandling));
+
+        // Apply the violations in the order in which the candidates were numbered
+        int candidate = 0;
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
+            pINDSingleLinkedList.pINDIterator referencedAttributes = attribute2Refs.get(attribute).elementIterator();
+            while (referencedAttributes.hasNext()) {
+                pINDSingleLinkedList.pINDElement pINDCandidate = referencedAttributes.next();
+                long candidateViolations = violations[candidate++];
+                if ((candidateViolations > 0L) && (pINDCandidate.subtractViolations(candidateViolations) < 0L))
+                    referencedAttributes.remove();
+            }
+        }
+    }
+
+    /**
+     * Sums up the violations of the numbered candidates over a range of values, splitting the range until it is small enough for one task.
+     */
+    private static class ValueGroupValidation extends RecursiveTask<long[]> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String[] values;
+        private final int from;
+        private final int to;
+        private final int maxValuesPerTask;
+        private final AttributeGroupIndex index;
+        private final int[][] attribute2Candidates;
+        private final int[] candidate2Referenced;
+        private final DuplicateHandling duplicateHandling;
+
+        ValueGroupValidation(String[] values, int from, int to, int maxValuesPerTask, AttributeGroupIndex index, int[][] attribute2Candidates,
+                             int[] candidate2Referenced, DuplicateHandling duplicateHandling) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.maxValuesPerTask = maxValuesPerTask;
+            this.index = index;
+            this.attribute2Candidates = attribute2Candidates;
+            this.candidate2Referenced = candidate2Referenced;
+            this.duplicateHandling = duplicateHandling;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (this.to - this.from > this.maxValuesPerTask) {
+                int middle = (this.from + this.to) >>> 1;
+                ValueGroupValidation left = new ValueGroupValidation(this.values, this.from, middle, this.maxValuesPerTask, this.index,
+                        this.attribute2Candidates, this.candidate2Referenced, this.duplicateHandling);
+                left.fork();
+                long[] violations = new ValueGroupValidation(this.values, middle, this.to, this.maxValuesPerTask, this.index,
+                        this.attribute2Candidates, this.candidate2Referenced, this.duplicateHandling).compute();
+                long[] leftViolations = left.join();
+                for (int candidate = 0; candidate < violations.length; candidate++)
+                    violations[candidate] = violations[candidate] + leftViolations[candidate];
+                return violations;
+            }
+
+            long[] violations = new long[this.candidate2Referenced.length];
+            for (int i = this.from; i < this.to; i++) {
+                String value = this.values[i];
+                long group = this.index.getGroup(value);
+                for (int member = this.index.nextMember(group, 0); member != -1; member = this.index.nextMember(group, member + 1)) {
+                    int dependant = this.index.getAttribute(member);
+                    int[] candidates = this.attribute2Candidates[dependant];
+                    if (candidates.length == 0) continue;
+
+                    // in an unaware setting, we only care about distinct violations
+                    long occurrences = (this.duplicateHandling == DuplicateHandling.AWARE) ? this.index.getBucket(dependant).getLong(value) : 1;
+                    for (int candidate : candidates)
+                        if (!this.index.contains(group, this.candidate2Referenced[candidate]))
+                            violations[candidate] = violations[candidate] + occurrences;
+                }
+            }
+            return violations;
         }
     }
 
@@ -305,6 +799,22 @@ public class Validator {
         this.activeAttributes = activeAttributes;
     }
 
+    /**
+     * Updates the active attributes like {@link #updateActiveAttributesFromLists(Int2ObjectOpenHashMap)}, but from the rows of the candidate matrix.
+     */
+    private void updateActiveAttributesFromMatrix() {
+        long[] words = new long[CandidateMatrix.numWordsFor(numColumns)];
+        BitSet dependants = new BitSet(numColumns);
+        for (int attribute = getNextAttribute(); attribute != -1; attribute = getNextAttribute(++attribute)) {
+            this.candidateMatrix.addReferencedTo(attribute, words);
+            if (!this.candidateMatrix.isEmpty(attribute))
+                dependants.set(attribute);
+        }
+        BitSet activeAttributes = BitSet.valueOf(words);
+        activeAttributes.or(dependants);
+        this.activeAttributes = activeAttributes;
+    }
+
     protected void checkViaTwoStageIndexAndLists() throws IOException {
         //logger.info("Starting validation");
 
@@ -0,0 +1,77 @@
+package binder.io;
+
+import binder.utils.EncodingUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryBucketReader implements BucketReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private boolean endOfChannel = false;
+    private String value = null;
+    private long count = 0;
+
+    public BinaryBucketReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (!this.fill(1))
+            return false;
+
+        this.fill(EncodingUtils.MAX_VAR_LONG_LENGTH);
+        int length = (int) EncodingUtils.readVarLong(this.buffer);
+        if (!this.fill(length + 1))
+            throw new EOFException("Truncated bucket entry");
+
+        this.value = new String(this.buffer.array(), this.buffer.arrayOffset() + this.buffer.position(), length, StandardCharsets.UTF_8);
+        this.buffer.position(this.buffer.position() + length);
+
+        this.fill(EncodingUtils.MAX_VAR_LONG_LENGTH);
+        this.count = EncodingUtils.readVarLong(this.buffer);
+        return true;
+    }
+
+    // Tries to make at least the given number of bytes available in the buffer and reports if this was possible
+    private boolean fill(int bytes) throws IOException {
+        if ((this.buffer.remaining() >= bytes) || this.endOfChannel)
+            return this.buffer.remaining() >= bytes;
+
+        if (this.buffer.capacity() < bytes)
+            this.buffer = ByteBuffer.allocate(Math.max(bytes, 2 * this.buffer.capacity())).put(this.buffer);
+        else
+            this.buffer.compact();
+
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                this.endOfChannel = true;
+                break;
+            }
+        }
+        this.buffer.flip();
+        return this.buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public String getValue() {
+        return this.value;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,56 @@
+package binder.io;
+
+import binder.utils.EncodingUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes each entry as a varint length, the UTF-8 bytes of the value and a varint count.
+ */
+public class BinaryBucketWriter implements BucketWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public BinaryBucketWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(String value, long count) throws IOException {
+        int length = EncodingUtils.utf8Length(value);
+        this.ensureRemaining(length + 2 * EncodingUtils.MAX_VAR_LONG_LENGTH);
+
+        EncodingUtils.writeVarLong(this.buffer, length);
+        EncodingUtils.writeUtf8(this.buffer, value);
+        EncodingUtils.writeVarLong(this.buffer, count);
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes)
+            return;
+        this.flush();
+        if (this.buffer.capacity() < bytes)
+            this.buffer = ByteBuffer.allocate(bytes);
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining())
+            this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package binder.io;
+
+import binder.utils.BucketCompression;
+import binder.utils.BucketFormat;
+import binder.utils.FileUtils;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Creates the readers and writers for runs of the configured {@link BucketFormat} and {@link BucketCompression} on top of the channels that a
+ * {@link BucketStore} provides.
+ */
+public class BucketFiles {
+
+    private static final int CODEC_BUFFER_SIZE = 1 << 16;
+
+    public static BucketWriter buildBucketWriter(WritableByteChannel channel, BucketFormat format, BucketCompression compression) {
+        if ((format == BucketFormat.BINARY) && (compression == BucketCompression.NONE))
+            return new BinaryBucketWriter(channel);
+
+        OutputStream out = compress(Channels.newOutputStream(channel), compression);
+        return switch (format) {
+            case TEXT -> new TextBucketWriter(new BufferedWriter(new OutputStreamWriter(out, Charset.forName(FileUtils.CHARSET_NAME))));
+            case BINARY -> new BinaryBucketWriter(Channels.newChannel(out));
+        };
+    }
+
+    public static BucketReader buildBucketReader(ReadableByteChannel channel, BucketFormat format, BucketCompression compression) {
+        if ((format == BucketFormat.BINARY) && (compression == BucketCompression.NONE))
+            return new BinaryBucketReader(channel);
+
+        InputStream in = decompress(Channels.newInputStream(channel), compression);
+        return switch (format) {
+            case TEXT -> new TextBucketReader(new BufferedReader(new InputStreamReader(in, Charset.forName(FileUtils.CHARSET_NAME))));
+            case BINARY -> new BinaryBucketReader(Channels.newChannel(in));
+        };
+    }
+
+    /**
+     * @return a reader for the single run or a reader that merges all runs; null if there are no runs
+     */
+    public static BucketReader mergeRuns(List<BucketReader> runs) throws IOException {
+        if (runs.isEmpty())
+            return null;
+        if (runs.size() == 1)
+            return runs.get(0);
+        return new MergingBucketReader(runs);
+    }
+
+    private static OutputStream compress(OutputStream out, BucketCompression compression) {
+        return switch (compression) {
+            case NONE -> out;
+            case DEFLATE -> {
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                yield new DeflaterOutputStream(out, deflater, CODEC_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        // A deflater that is passed to the stream is not released by the stream itself
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            }
+            case LZ -> new LzOutputStream(out);
+        };
+    }
+
+    private static InputStream decompress(InputStream in, BucketCompression compression) {
+        return switch (compression) {
+            case NONE -> in;
+            case DEFLATE -> {
+                Inflater inflater = new Inflater();
+                yield new InflaterInputStream(in, inflater, CODEC_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            }
+            case LZ -> new LzInputStream(in);
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package binder.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Iterates the entries of a bucket file. The current entry is only valid until the next call of {@link #next()}.
+ */
+public interface BucketReader extends Closeable {
+
+    /**
+     * Advances to the next entry.
+     *
+     * @return false if there are no more entries
+     * @throws IOException if the bucket file can not be read
+     */
+    boolean next() throws IOException;
+
+    String getValue();
+
+    long getCount();
+}
@@ -0,0 +1,53 @@
+package binder.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Stores the buckets of all attributes and attribute combinations. A bucket is identified by its attribute number, its bucket number and its sub
+ * bucket number, which is -1 for buckets that have not been refined. Every write adds a new run, i.e., a set of distinct values in sorted order,
+ * to a bucket; reading a bucket merges all its runs.
+ * <p>
+ * Implementations must allow runs of different buckets to be written and read concurrently.
+ */
+public interface BucketStore extends Closeable {
+
+    @FunctionalInterface
+    interface BucketAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * An action that reads or writes only the addressed bucket.
+     */
+    record BucketTask(int attributeNumber, int bucketNumber, int subBucketNumber, BucketAction action) {
+    }
+
+    /**
+     * Opens a writer for a new run of the bucket; the caller must write the values in sorted order. The run becomes visible to readers when the writer
+     * is closed.
+     */
+    BucketWriter openRun(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException;
+
+    /**
+     * Opens a reader that merges all runs of the bucket.
+     *
+     * @return null if no run has been written for the bucket
+     */
+    BucketReader openBucket(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException;
+
+    /**
+     * Runs the given tasks and returns when all of them are done. Stores that span several devices may run the tasks of different devices
+     * concurrently; the tasks of one bucket always run in the given order.
+     */
+    default void runAll(List<BucketTask> tasks) throws IOException {
+        for (BucketTask task : tasks)
+            task.action().run();
+    }
+
+    /**
+     * Removes all buckets; there must be no open writers.
+     */
+    void clear() throws IOException;
+}
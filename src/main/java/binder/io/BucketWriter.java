@@ -0,0 +1,12 @@
+package binder.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the entries of a bucket, i.e., its distinct values and their number of occurrences, to a bucket file.
+ */
+public interface BucketWriter extends Closeable {
+
+    void write(String value, long count) throws IOException;
+}
@@ -0,0 +1,104 @@
+package binder.io;
+
+import binder.utils.EncodingUtils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads selected columns of a table that a {@link ColumnarTableWriter} has written, row by row. The files of all other columns are not touched and
+ * their positions in the rows stay null.
+ */
+public class ColumnarTableReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int[] columns;
+    private final FileChannel[] channels;
+    private final ByteBuffer[] buffers;
+    private final String[] record;
+    private final List<String> values;
+
+    /**
+     * @param columns the table-local indexes of the columns to read
+     */
+    public ColumnarTableReader(File tableFolder, int numColumns, int[] columns) throws IOException {
+        this.columns = columns;
+        this.channels = new FileChannel[columns.length];
+        this.buffers = new ByteBuffer[columns.length];
+        this.record = new String[numColumns];
+        this.values = Arrays.asList(this.record);
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                this.channels[i] = FileChannel.open(Path.of(ColumnarTableWriter.getColumnFilePath(tableFolder, columns[i])), StandardOpenOption.READ);
+                this.buffers[i] = ByteBuffer.allocate(BUFFER_SIZE).flip();
+            }
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    public boolean next() throws IOException {
+        for (int i = 0; i < this.columns.length; i++) {
+            if (!this.fill(i, 1))
+                return false;
+
+            this.fill(i, EncodingUtils.MAX_VAR_LONG_LENGTH);
+            ByteBuffer buffer = this.buffers[i];
+            int length = (int) EncodingUtils.readVarLong(buffer) - 1;
+            if (length < 0) {
+                this.record[this.columns[i]] = null;
+                continue;
+            }
+            if (!this.fill(i, length))
+                throw new EOFException("Truncated column file");
+            buffer = this.buffers[i];
+            this.record[this.columns[i]] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        return true;
+    }
+
+    // Tries to make at least the given number of bytes of the column available in its buffer and reports if this was possible
+    private boolean fill(int i, int bytes) throws IOException {
+        ByteBuffer buffer = this.buffers[i];
+        if (buffer.remaining() >= bytes)
+            return true;
+
+        if (buffer.capacity() < bytes)
+            buffer = ByteBuffer.allocate(Math.max(bytes, 2 * buffer.capacity())).put(buffer);
+        else
+            buffer.compact();
+        this.buffers[i] = buffer;
+
+        while (buffer.position() < bytes)
+            if (this.channels[i].read(buffer) < 0)
+                break;
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * @return the current row, which is overwritten by the next call of {@link #next()}
+     */
+    public List<String> getValues() {
+        return this.values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : this.channels)
+            if (channel != null)
+                channel.close();
+    }
+}
@@ -0,0 +1,97 @@
+package binder.io;
+
+import binder.structures.ValueDictionary;
+import binder.utils.EncodingUtils;
+import binder.utils.FileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Writes a columnar copy of a table with one file per column, so that later passes can read only the columns they need without parsing the input
+ * again. Each row of a column is stored as a varint of the value's UTF-8 length plus one, where zero marks a null, followed by the UTF-8 bytes.
+ * <p>
+ * If a value dictionary is given, the values are stored with their dictionary ids, which keeps the copy compact and spares the readers the lookup.
+ */
+public class ColumnarTableWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private final ValueDictionary valueDictionary;
+    private final FileChannel[] channels;
+    private final ByteBuffer[] buffers;
+
+    public ColumnarTableWriter(File tableFolder, int numColumns, ValueDictionary valueDictionary) throws IOException {
+        this.valueDictionary = valueDictionary;
+        this.channels = new FileChannel[numColumns];
+        this.buffers = new ByteBuffer[numColumns];
+        try {
+            for (int column = 0; column < numColumns; column++) {
+                this.channels[column] = FileUtils.buildFileChannel(getColumnFilePath(tableFolder, column), false);
+                this.buffers[column] = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    static String getColumnFilePath(File tableFolder, int column) {
+        return tableFolder.getPath() + File.separator + column;
+    }
+
+    public void write(List<String> values) throws IOException {
+        for (int column = 0; column < this.channels.length; column++) {
+            String value = values.get(column);
+            if (value == null) {
+                this.ensureRemaining(column, 1);
+                EncodingUtils.writeVarLong(this.buffers[column], 0);
+                continue;
+            }
+            if (this.valueDictionary != null)
+                value = this.valueDictionary.encode(value);
+
+            int length = EncodingUtils.utf8Length(value);
+            this.ensureRemaining(column, length + EncodingUtils.MAX_VAR_LONG_LENGTH);
+            EncodingUtils.writeVarLong(this.buffers[column], length + 1L);
+            EncodingUtils.writeUtf8(this.buffers[column], value);
+        }
+    }
+
+    private void ensureRemaining(int column, int bytes) throws IOException {
+        if (this.buffers[column].remaining() >= bytes)
+            return;
+        this.flush(column);
+        if (this.buffers[column].capacity() < bytes)
+            this.buffers[column] = ByteBuffer.allocate(bytes);
+    }
+
+    private void flush(int column) throws IOException {
+        ByteBuffer buffer = this.buffers[column];
+        buffer.flip();
+        while (buffer.hasRemaining())
+            this.channels[column].write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int column = 0; column < this.channels.length; column++) {
+            if (this.channels[column] == null)
+                continue;
+            try {
+                this.flush(column);
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+            FileUtils.close(this.channels[column]);
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
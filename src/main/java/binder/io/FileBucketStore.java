@@ -0,0 +1,100 @@
+package binder.io;
+
+import binder.utils.BucketCompression;
+import binder.utils.BucketFormat;
+import binder.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores every bucket in its own files below a directory per attribute. The first run of a bucket is stored under the bucket's own path and run
+ * <i>n</i> under the path plus the suffix ".<i>n</i>".
+ * <p>
+ * Runs of the same bucket must not be written concurrently, because the run numbers are derived from the existing files.
+ */
+public class FileBucketStore implements BucketStore {
+
+    private final File folder;
+    private final BucketFormat format;
+    private final BucketCompression compression;
+    private final boolean memoryMapped;
+
+    public FileBucketStore(File folder, BucketFormat format, BucketCompression compression, boolean memoryMapped) {
+        this.folder = folder;
+        this.format = format;
+        this.compression = compression;
+        this.memoryMapped = memoryMapped;
+    }
+
+    private String getBucketFilePath(int attributeNumber, int bucketNumber, int subBucketNumber) {
+        if (subBucketNumber >= 0)
+            return this.folder.getPath() + File.separator + attributeNumber + File.separator + bucketNumber + "_" + subBucketNumber;
+        return this.folder.getPath() + File.separator + attributeNumber + File.separator + bucketNumber;
+    }
+
+    private static String getRunFilePath(String bucketFilePath, int run) {
+        if (run == 0)
+            return bucketFilePath;
+        return bucketFilePath + "." + run;
+    }
+
+    private static int countRuns(String bucketFilePath) {
+        int run = 0;
+        while (new File(getRunFilePath(bucketFilePath, run)).exists())
+            run++;
+        return run;
+    }
+
+    @Override
+    public BucketWriter openRun(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        String bucketFilePath = this.getBucketFilePath(attributeNumber, bucketNumber, subBucketNumber);
+        String runFilePath = getRunFilePath(bucketFilePath, countRuns(bucketFilePath));
+        return BucketFiles.buildBucketWriter(FileUtils.buildFileChannel(runFilePath, false), this.format, this.compression);
+    }
+
+    @Override
+    public BucketReader openBucket(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        String bucketFilePath = this.getBucketFilePath(attributeNumber, bucketNumber, subBucketNumber);
+        int numRuns = countRuns(bucketFilePath);
+
+        List<BucketReader> runs = new ArrayList<>(numRuns);
+        try {
+            for (int run = 0; run < numRuns; run++)
+                runs.add(this.openRunFile(getRunFilePath(bucketFilePath, run)));
+            return BucketFiles.mergeRuns(runs);
+        } catch (IOException e) {
+            runs.forEach(FileUtils::close);
+            throw e;
+        }
+    }
+
+    private BucketReader openRunFile(String runFilePath) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(runFilePath), StandardOpenOption.READ);
+        // Compressed runs can not be decoded from a mapping of the file, so they are always streamed
+        if (this.memoryMapped && (this.compression == BucketCompression.NONE)) {
+            try {
+                return new MappedBucketReader(channel, 0, channel.size(), this.format, true);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        return BucketFiles.buildBucketReader(channel, this.format, this.compression);
+    }
+
+    @Override
+    public void clear() {
+        FileUtils.cleanDirectory(this.folder);
+    }
+
+    @Override
+    public void close() {
+        // The files are opened per run, so there is nothing to release
+    }
+}
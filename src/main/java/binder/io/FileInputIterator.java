@@ -8,34 +8,48 @@ import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.backend.input.file.DefaultFileInputGenerator;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class FileInputIterator {
+public class FileInputIterator implements Closeable {
 
     private final RelationalInput inputGenerator;
     private final int inputRowLimit;
+    private final boolean escapeLineBreaks;
     private List<String> record = null;
     private int rowsRead = 0;
 
     public FileInputIterator(String relationName, RelationalInputGenerator input, int inputRowLimit) throws IOException {
+        this(relationName, input, inputRowLimit, true);
+    }
+
+    public FileInputIterator(String relationName, RelationalInputGenerator input, int inputRowLimit, boolean escapeLineBreaks) throws IOException {
         try {
             this.inputGenerator = input.generateNewCopy();
         } catch (InputGenerationException | AlgorithmConfigurationException e) {
             throw new RuntimeException(e);
         }
         this.inputRowLimit = inputRowLimit;
+        this.escapeLineBreaks = escapeLineBreaks;
     }
 
     public boolean next() throws InputIterationException {
         if (this.inputGenerator.hasNext() && ((this.inputRowLimit <= 0) || (this.rowsRead < this.inputRowLimit))) {
             List<String> input = this.inputGenerator.next();
+            if (!this.escapeLineBreaks) {
+                this.record = input;
+                this.rowsRead++;
+                return true;
+            }
+
             this.record = new ArrayList<>(input.size());
             for (String value : input) {
-                // Replace line breaks with the zero-character, because these line breaks would otherwise split values when later written to plane-text buckets
+                // Replace line breaks with the zero-character, because these line breaks would otherwise split values when later written to plane-text buckets;
+                // binary buckets store values length-prefixed and need no such rewriting
                 if (value != null) {
                     value = value.replaceAll("\n", "\0");
                 }
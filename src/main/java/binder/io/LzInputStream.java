@@ -0,0 +1,134 @@
+package binder.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a stream that was written by an {@link LzOutputStream}.
+ */
+public class LzInputStream extends InputStream {
+
+    private final InputStream in;
+    private final byte[] block = new byte[LzOutputStream.BLOCK_SIZE];
+    private byte[] compressed = new byte[LzOutputStream.maxCompressedLength(LzOutputStream.BLOCK_SIZE)];
+    private int position = 0;
+    private int limit = 0;
+
+    public LzInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((this.position == this.limit) && !this.readBlock())
+            return -1;
+        return this.block[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if ((this.position == this.limit) && !this.readBlock())
+            return -1;
+
+        int chunk = Math.min(length, this.limit - this.position);
+        System.arraycopy(this.block, this.position, bytes, offset, chunk);
+        this.position += chunk;
+        return chunk;
+    }
+
+    private boolean readBlock() throws IOException {
+        int first = this.in.read();
+        if (first < 0)
+            return false;
+
+        int rawLength = (first << 24) | this.readInt(3);
+        int compressedLength = this.readInt(4);
+        if ((rawLength <= 0) || (rawLength > LzOutputStream.BLOCK_SIZE) || (compressedLength < 0) || (compressedLength > this.compressed.length))
+            throw new IOException("Corrupt LZ block header");
+
+        if (compressedLength == 0) {
+            this.readFully(this.block, rawLength);
+        } else {
+            this.readFully(this.compressed, compressedLength);
+            if (decompress(this.compressed, compressedLength, this.block) != rawLength)
+                throw new IOException("Corrupt LZ block");
+        }
+        this.position = 0;
+        this.limit = rawLength;
+        return true;
+    }
+
+    private static int decompress(byte[] src, int length, byte[] dst) throws IOException {
+        int in = 0;
+        int out = 0;
+        try {
+            while (true) {
+                int token = src[in++] & 0xFF;
+
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    int b;
+                    do {
+                        b = src[in++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(src, in, dst, out, literalLength);
+                in += literalLength;
+                out += literalLength;
+
+                if (in == length)
+                    return out;
+
+                int offset = (src[in++] & 0xFF) | ((src[in++] & 0xFF) << 8);
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[in++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += LzOutputStream.MIN_MATCH;
+
+                // Copy byte by byte, because the match may overlap the bytes that it produces
+                int reference = out - offset;
+                if (reference < 0)
+                    throw new IOException("Corrupt LZ block");
+                for (int i = 0; i < matchLength; i++)
+                    dst[out++] = dst[reference + i];
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt LZ block", e);
+        }
+    }
+
+    private int readInt(int bytes) throws IOException {
+        int value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = this.in.read();
+            if (b < 0)
+                throw new EOFException("Truncated LZ block header");
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = this.in.read(bytes, read, length - read);
+            if (n < 0)
+                throw new EOFException("Truncated LZ block");
+            read += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,159 @@
+package binder.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Compresses the stream block by block with a fast LZ77 scheme that finds matches through a hash table of four-byte sequences.
+ * <p>
+ * Every block starts with its raw length and its compressed length as four-byte integers; a compressed length of zero marks a block that is stored
+ * uncompressed because compression would not shrink it. The compressed data is a sequence of tokens, each holding a number of literal bytes and
+ * a back-reference of at least {@link #MIN_MATCH} bytes; lengths that exceed a token's four bits continue in bytes of 255. The last token of a
+ * block carries only literals.
+ */
+public class LzOutputStream extends OutputStream {
+
+    static final int BLOCK_SIZE = 1 << 16;
+    static final int MIN_MATCH = 4;
+    static final int MAX_OFFSET = (1 << 16) - 1;
+
+    private static final int HASH_BITS = 14;
+
+    private final OutputStream out;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+    private final int[] table = new int[1 << HASH_BITS];
+    private int position = 0;
+
+    public LzOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (this.position == BLOCK_SIZE)
+            this.writeBlock();
+        this.block[this.position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (this.position == BLOCK_SIZE)
+                this.writeBlock();
+            int chunk = Math.min(length, BLOCK_SIZE - this.position);
+            System.arraycopy(bytes, offset, this.block, this.position, chunk);
+            this.position += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (this.position == 0)
+            return;
+
+        int compressedLength = this.compress();
+        this.writeInt(this.position);
+        if (compressedLength < this.position) {
+            this.writeInt(compressedLength);
+            this.out.write(this.compressed, 0, compressedLength);
+        } else {
+            this.writeInt(0);
+            this.out.write(this.block, 0, this.position);
+        }
+        this.position = 0;
+    }
+
+    private int compress() {
+        byte[] src = this.block;
+        int length = this.position;
+        Arrays.fill(this.table, -1);
+
+        int out = 0;
+        int anchor = 0;
+        int i = 0;
+        while (i + MIN_MATCH <= length) {
+            int sequence = readInt(src, i);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+            int reference = this.table[hash];
+            this.table[hash] = i;
+
+            if ((reference < 0) || (i - reference > MAX_OFFSET) || (readInt(src, reference) != sequence)) {
+                i++;
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while ((i + matchLength < length) && (src[reference + matchLength] == src[i + matchLength]))
+                matchLength++;
+
+            out = this.writeSequence(out, anchor, i - anchor, i - reference, matchLength);
+            i += matchLength;
+            anchor = i;
+        }
+        return this.writeSequence(out, anchor, length - anchor, 0, 0);
+    }
+
+    // Writes the literals src[anchor, anchor + literalLength) followed by the match; a match length of zero marks the last sequence
+    private int writeSequence(int out, int anchor, int literalLength, int offset, int matchLength) {
+        byte[] dst = this.compressed;
+        int matchCode = (matchLength == 0) ? 0 : matchLength - MIN_MATCH;
+        int tokenPosition = out++;
+        dst[tokenPosition] = (byte) ((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+
+        if (literalLength >= 15)
+            out = writeLength(dst, out, literalLength - 15);
+        System.arraycopy(this.block, anchor, dst, out, literalLength);
+        out += literalLength;
+
+        if (matchLength == 0)
+            return out;
+
+        dst[out++] = (byte) offset;
+        dst[out++] = (byte) (offset >>> 8);
+        if (matchCode >= 15)
+            out = writeLength(dst, out, matchCode - 15);
+        return out;
+    }
+
+    private static int writeLength(byte[] dst, int out, int length) {
+        while (length >= 255) {
+            dst[out++] = (byte) 255;
+            length -= 255;
+        }
+        dst[out++] = (byte) length;
+        return out;
+    }
+
+    private static int readInt(byte[] bytes, int position) {
+        return (bytes[position] & 0xFF) | ((bytes[position + 1] & 0xFF) << 8) | ((bytes[position + 2] & 0xFF) << 16) | ((bytes[position + 3] & 0xFF) << 24);
+    }
+
+    private void writeInt(int value) throws IOException {
+        this.out.write(value >>> 24);
+        this.out.write(value >>> 16);
+        this.out.write(value >>> 8);
+        this.out.write(value);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writeBlock();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.writeBlock();
+        } finally {
+            this.out.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package binder.io;
+
+import binder.utils.BucketFormat;
+import binder.utils.EncodingUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a bucket of either {@link BucketFormat} from memory-mapped regions of its file, so that repeated reads of the same bucket are served from the
+ * page cache without copying them through a stream and a char decoder first. The bucket may occupy only a range of the file; ranges larger than
+ * one region are mapped window by window.
+ * <p>
+ * A region is unmapped as soon as the reader moves past it or is closed, so that a validation over thousands of bucket files holds at most one
+ * region of {@link #REGION_SIZE} bytes per open reader. The JDK offers no public way to unmap a region; if its internal cleaner is not accessible,
+ * the regions are only unmapped when the garbage collector reclaims them.
+ */
+public class MappedBucketReader implements BucketReader {
+
+    private static final int REGION_SIZE = 1 << 26;
+    private static final MethodHandle UNMAP = findUnmap();
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final BucketFormat format;
+    private final long rangeEnd;
+    private long regionStart;
+    private MappedByteBuffer region;
+    private byte[] bytes = new byte[256];
+    private String value = null;
+    private long count = 0;
+
+    /**
+     * @param closeChannel whether closing the reader closes the channel, too
+     */
+    public MappedBucketReader(FileChannel channel, long start, long size, BucketFormat format, boolean closeChannel) throws IOException {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.format = format;
+        this.rangeEnd = start + size;
+        this.region = this.map(start, Math.min(REGION_SIZE, size));
+    }
+
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        this.regionStart = position;
+        return this.channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (!this.ensure(1))
+            return false;
+
+        return switch (this.format) {
+            case TEXT -> this.nextText();
+            case BINARY -> this.nextBinary();
+        };
+    }
+
+    private boolean nextBinary() throws IOException {
+        this.ensure(EncodingUtils.MAX_VAR_LONG_LENGTH);
+        int length = (int) EncodingUtils.readVarLong(this.region);
+        if (!this.ensure(length + 1))
+            throw new EOFException("Truncated bucket entry");
+        this.value = this.decode(length);
+
+        this.ensure(EncodingUtils.MAX_VAR_LONG_LENGTH);
+        this.count = EncodingUtils.readVarLong(this.region);
+        return true;
+    }
+
+    private boolean nextText() throws IOException {
+        this.value = this.readLine();
+        String countLine = this.readLine();
+        if (countLine == null)
+            throw new EOFException("Truncated bucket entry");
+        this.count = Long.parseLong(countLine);
+        return true;
+    }
+
+    // Reads the next line terminated by '\n' or "\r\n" as the text writer's newLine() produces them
+    private String readLine() throws IOException {
+        if (!this.ensure(1))
+            return null;
+
+        int start = this.region.position();
+        int limit = this.region.limit();
+        int end = start;
+        while ((end < limit) && (this.region.get(end) != '\n'))
+            end++;
+
+        // The line crosses the end of the region, so remap at its start and search again
+        if ((end == limit) && (this.regionStart + limit < this.rangeEnd)) {
+            if (start == 0)
+                throw new IOException("Bucket line exceeds " + REGION_SIZE + " bytes");
+            this.remap(this.regionStart + start, REGION_SIZE);
+            return this.readLine();
+        }
+
+        int length = end - start;
+        if ((length > 0) && (this.region.get(end - 1) == '\r'))
+            length--;
+        String line = this.decode(length);
+        this.region.position(Math.min(end + 1, limit));
+        return line;
+    }
+
+    private String decode(int length) {
+        if (this.bytes.length < length)
+            this.bytes = new byte[Math.max(length, 2 * this.bytes.length)];
+        this.region.get(this.bytes, 0, length);
+        return new String(this.bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Reports if at least the given number of bytes can be read from the current position, remapping the region if the file has more
+    private boolean ensure(int bytes) throws IOException {
+        if (this.region.remaining() >= bytes)
+            return true;
+
+        long position = this.regionStart + this.region.position();
+        if (this.regionStart + this.region.limit() >= this.rangeEnd)
+            return false;
+
+        this.remap(position, bytes);
+        return this.region.remaining() >= bytes;
+    }
+
+    private void remap(long position, long minSize) throws IOException {
+        long size = Math.min(Math.max(REGION_SIZE, minSize), this.rangeEnd - position);
+        unmap(this.region);
+        this.region = this.map(position, size);
+    }
+
+    private static MethodHandle findUnmap() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Unmaps the region right away; the region must not be accessed afterwards
+    private static void unmap(MappedByteBuffer region) {
+        if ((UNMAP == null) || (region == null))
+            return;
+        try {
+            UNMAP.invokeExact((ByteBuffer) region);
+        } catch (Throwable e) {
+            // The garbage collector unmaps the region eventually
+        }
+    }
+
+    @Override
+    public String getValue() {
+        return this.value;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        unmap(this.region);
+        this.region = null;
+        if (this.closeChannel)
+            this.channel.close();
+    }
+}
@@ -0,0 +1,70 @@
+package binder.io;
+
+import binder.utils.FileUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the sorted runs of a spilled bucket into one sorted stream of distinct values. The counts of values that occur in several runs are summed,
+ * and only the current entry of each run is held in memory.
+ */
+public class MergingBucketReader implements BucketReader {
+
+    private final List<BucketReader> runs;
+    private final PriorityQueue<BucketReader> queue;
+    private String value = null;
+    private long count = 0;
+
+    public MergingBucketReader(List<BucketReader> runs) throws IOException {
+        this.runs = runs;
+        this.queue = new PriorityQueue<>(runs.size(), (reader1, reader2) -> reader1.getValue().compareTo(reader2.getValue()));
+        try {
+            for (BucketReader run : runs)
+                this.advance(run);
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        BucketReader run = this.queue.poll();
+        if (run == null)
+            return false;
+
+        this.value = run.getValue();
+        this.count = run.getCount();
+        this.advance(run);
+
+        while ((!this.queue.isEmpty()) && this.queue.peek().getValue().equals(this.value)) {
+            run = this.queue.poll();
+            this.count = this.count + run.getCount();
+            this.advance(run);
+        }
+        return true;
+    }
+
+    private void advance(BucketReader run) throws IOException {
+        if (run.next())
+            this.queue.add(run);
+    }
+
+    @Override
+    public String getValue() {
+        return this.value;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (BucketReader run : this.runs)
+            FileUtils.close(run);
+    }
+}
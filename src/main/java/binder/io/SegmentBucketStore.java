@@ -0,0 +1,221 @@
+package binder.io;
+
+import binder.utils.BucketCompression;
+import binder.utils.BucketFormat;
+import binder.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores all buckets in a few large, append-only segment files and keeps an in-memory index that maps every bucket to the byte ranges of its runs.
+ * Writing a run is a sequential append to a segment, reading a bucket reads a few ranges, and clearing the store deletes only the segments.
+ * <p>
+ * A writer owns a segment exclusively until the run is complete, so that every run is contiguous; concurrent writers append to different segments.
+ * Segments that exceed {@link #SEGMENT_SIZE} are not appended to anymore.
+ */
+public class SegmentBucketStore implements BucketStore {
+
+    private static final long SEGMENT_SIZE = 1L << 28;
+
+    private record BucketKey(int attributeNumber, int bucketNumber, int subBucketNumber) {
+    }
+
+    private record Run(Segment segment, long offset, long length) {
+    }
+
+    private static final class Segment {
+
+        final Path path;
+        final FileChannel channel;
+
+        Segment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+    }
+
+    private final File folder;
+    private final BucketFormat format;
+    private final BucketCompression compression;
+    private final boolean memoryMapped;
+
+    private final ConcurrentHashMap<BucketKey, List<Run>> index = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new ArrayList<>();   // guarded by this
+    private final Deque<Segment> idleSegments = new ArrayDeque<>(); // guarded by this
+
+    public SegmentBucketStore(File folder, BucketFormat format, BucketCompression compression, boolean memoryMapped) {
+        this.folder = folder;
+        this.format = format;
+        this.compression = compression;
+        this.memoryMapped = memoryMapped;
+    }
+
+    private synchronized Segment acquireSegment() throws IOException {
+        Segment segment = this.idleSegments.pollFirst();
+        if (segment != null)
+            return segment;
+
+        Files.createDirectories(this.folder.toPath());
+        segment = new Segment(this.folder.toPath().resolve("segment_" + this.segments.size()));
+        this.segments.add(segment);
+        return segment;
+    }
+
+    private synchronized void releaseSegment(Segment segment) throws IOException {
+        if (segment.channel.position() < SEGMENT_SIZE)
+            this.idleSegments.addFirst(segment);
+    }
+
+    @Override
+    public BucketWriter openRun(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        BucketKey key = new BucketKey(attributeNumber, bucketNumber, subBucketNumber);
+        return BucketFiles.buildBucketWriter(new RunChannel(key, this.acquireSegment()), this.format, this.compression);
+    }
+
+    @Override
+    public BucketReader openBucket(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        List<Run> runs = this.index.get(new BucketKey(attributeNumber, bucketNumber, subBucketNumber));
+        if (runs == null)
+            return null;
+
+        List<Run> snapshot;
+        synchronized (runs) {
+            snapshot = new ArrayList<>(runs);
+        }
+        List<BucketReader> readers = new ArrayList<>(snapshot.size());
+        try {
+            for (Run run : snapshot)
+                readers.add(this.openRun(run));
+            return BucketFiles.mergeRuns(readers);
+        } catch (IOException e) {
+            readers.forEach(FileUtils::close);
+            throw e;
+        }
+    }
+
+    private BucketReader openRun(Run run) throws IOException {
+        // Compressed runs can not be decoded from a mapping of the segment, so they are always streamed
+        if (this.memoryMapped && (this.compression == BucketCompression.NONE))
+            return new MappedBucketReader(run.segment().channel, run.offset(), run.length(), this.format, false);
+        return BucketFiles.buildBucketReader(new RangeChannel(run), this.format, this.compression);
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        this.close();
+        for (Segment segment : this.segments)
+            Files.deleteIfExists(segment.path);
+        this.segments.clear();
+        this.idleSegments.clear();
+        this.index.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : this.segments)
+            FileUtils.close(segment.channel);
+    }
+
+    /**
+     * Appends one run to the end of a segment that the writer owns exclusively and registers the run in the index when it is closed.
+     */
+    private final class RunChannel implements WritableByteChannel {
+
+        private final BucketKey key;
+        private final Segment segment;
+        private final long offset;
+        private boolean open = true;
+
+        RunChannel(BucketKey key, Segment segment) throws IOException {
+            this.key = key;
+            this.segment = segment;
+            this.offset = segment.channel.position();
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            if (!this.open)
+                throw new ClosedChannelException();
+            return this.segment.channel.write(source);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.open)
+                return;
+            this.open = false;
+
+            long length = this.segment.channel.position() - this.offset;
+            if (length > 0) {
+                List<Run> runs = SegmentBucketStore.this.index.computeIfAbsent(this.key, key -> new ArrayList<>());
+                synchronized (runs) {
+                    runs.add(new Run(this.segment, this.offset, length));
+                }
+            }
+            SegmentBucketStore.this.releaseSegment(this.segment);
+        }
+    }
+
+    /**
+     * Reads the byte range of one run with positional reads, so that any number of readers can share the segment's channel with its writer.
+     */
+    private static final class RangeChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(Run run) {
+            this.channel = run.segment().channel;
+            this.position = run.offset();
+            this.end = run.offset() + run.length();
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            if (this.position >= this.end)
+                return -1;
+
+            int limit = destination.limit();
+            destination.limit(destination.position() + (int) Math.min(destination.remaining(), this.end - this.position));
+            try {
+                int read = this.channel.read(destination, this.position);
+                if (read > 0)
+                    this.position += read;
+                return read;
+            } finally {
+                destination.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The channel belongs to the segment
+        }
+    }
+}
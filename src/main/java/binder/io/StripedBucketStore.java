@@ -0,0 +1,110 @@
+package binder.io;
+
+import binder.utils.FileUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Distributes the buckets across several stores, typically one per local disk, by a hash of their attribute, bucket and sub bucket number. Every
+ * stripe has its own I/O thread, so that {@link #runAll(List)} keeps all disks busy at the same time.
+ */
+public class StripedBucketStore implements BucketStore {
+
+    private final List<BucketStore> stripes;
+    private final List<ExecutorService> executors;
+
+    public StripedBucketStore(List<BucketStore> stripes) {
+        this.stripes = stripes;
+        this.executors = new ArrayList<>(stripes.size());
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            String name = "binder-bucket-io-" + stripe;
+            this.executors.add(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    private int getStripe(int attributeNumber, int bucketNumber, int subBucketNumber) {
+        int hash = (attributeNumber * 31 + bucketNumber) * 31 + subBucketNumber;
+        hash = hash ^ (hash >>> 16);
+        hash = hash * 0x45D9F3B;
+        hash = hash ^ (hash >>> 16);
+        return Math.floorMod(hash, this.stripes.size());
+    }
+
+    @Override
+    public BucketWriter openRun(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        return this.stripes.get(this.getStripe(attributeNumber, bucketNumber, subBucketNumber)).openRun(attributeNumber, bucketNumber, subBucketNumber);
+    }
+
+    @Override
+    public BucketReader openBucket(int attributeNumber, int bucketNumber, int subBucketNumber) throws IOException {
+        return this.stripes.get(this.getStripe(attributeNumber, bucketNumber, subBucketNumber)).openBucket(attributeNumber, bucketNumber, subBucketNumber);
+    }
+
+    @Override
+    public void runAll(List<BucketTask> tasks) throws IOException {
+        List<List<BucketTask>> tasksPerStripe = new ArrayList<>(this.stripes.size());
+        for (int stripe = 0; stripe < this.stripes.size(); stripe++)
+            tasksPerStripe.add(new ArrayList<>());
+        for (BucketTask task : tasks)
+            tasksPerStripe.get(this.getStripe(task.attributeNumber(), task.bucketNumber(), task.subBucketNumber())).add(task);
+
+        List<Future<?>> futures = new ArrayList<>(this.stripes.size());
+        for (int stripe = 0; stripe < this.stripes.size(); stripe++) {
+            List<BucketTask> stripeTasks = tasksPerStripe.get(stripe);
+            if (stripeTasks.isEmpty())
+                continue;
+            futures.add(this.executors.get(stripe).submit(() -> {
+                for (BucketTask task : stripeTasks)
+                    task.action().run();
+                return null;
+            }));
+        }
+
+        // Wait for all stripes, even if one fails, because the tasks may still use the caller's buckets
+        IOException ioException = null;
+        RuntimeException runtimeException = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the bucket I/O", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException cause)
+                    ioException = (ioException == null) ? cause : ioException;
+                else if (e.getCause() instanceof RuntimeException cause)
+                    runtimeException = (runtimeException == null) ? cause : runtimeException;
+                else
+                    runtimeException = new RuntimeException(e.getCause());
+            }
+        }
+        if (ioException != null)
+            throw ioException;
+        if (runtimeException != null)
+            throw runtimeException;
+    }
+
+    @Override
+    public void clear() throws IOException {
+        for (BucketStore stripe : this.stripes)
+            stripe.clear();
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService executor : this.executors)
+            executor.shutdownNow();
+        for (BucketStore stripe : this.stripes)
+            FileUtils.close(stripe);
+    }
+}
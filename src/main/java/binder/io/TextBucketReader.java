@@ -0,0 +1,39 @@
+package binder.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public class TextBucketReader implements BucketReader {
+
+    private final BufferedReader reader;
+    private String value = null;
+    private long count = 0;
+
+    public TextBucketReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        this.value = this.reader.readLine();
+        if (this.value == null)
+            return false;
+        this.count = Long.parseLong(this.reader.readLine());
+        return true;
+    }
+
+    @Override
+    public String getValue() {
+        return this.value;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,29 @@
+package binder.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * Writes each value and its count as two lines of text. Values must therefore not contain line breaks.
+ */
+public class TextBucketWriter implements BucketWriter {
+
+    private final BufferedWriter writer;
+
+    public TextBucketWriter(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(String value, long count) throws IOException {
+        this.writer.write(value);
+        this.writer.newLine();
+        this.writer.write(Long.toString(count));
+        this.writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
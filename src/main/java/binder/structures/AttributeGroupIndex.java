@@ -0,0 +1,209 @@
+package binder.structures;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The inverted index of a (sub) bucket level, which maps every value to the group of attributes that contain it. The attributes of the level are
+ * numbered densely as members, so that a level of at most 64 attributes stores the group of a value as one long mask. Larger levels store a slot
+ * number per value instead, whose bitmap lies in one shared array of long words. All values of the same group share its slot, so the bitmaps grow
+ * with the number of distinct groups rather than with the number of values.
+ * <p>
+ * The index also keeps the buckets of the level. Bucket maps that are taken from the index via {@link #takeBucket()} return to its pool on
+ * {@link #release()}, which clears all structures without shrinking them, so that one index serves all levels of a validation without reallocation.
+ * <p>
+ * The index is not thread-safe while it is loaded; afterwards, its lookups may be shared by several threads.
+ */
+public class AttributeGroupIndex {
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final Object2LongOpenHashMap<String> groups = new Object2LongOpenHashMap<>(); // The mask or, if there are more than 64 members, slot + 1
+    private final IntArrayList attributes = new IntArrayList();
+    private final List<Object2LongOpenHashMap<String>> buckets = new ArrayList<>();
+    private final int[] members;
+    private int numWords = 1;
+    private long[] bitmaps = new long[0];
+    private int[] references = new int[0]; // The number of values per slot; slots without values are reused
+    private int numSlots = 0;
+    private final IntArrayList freeSlots = new IntArrayList();
+    private final Long2IntOpenHashMap extensions = new Long2IntOpenHashMap(); // Maps a group to the slot of the group plus the member being loaded
+
+    private final Deque<Object2LongOpenHashMap<String>> freeBuckets = new ArrayDeque<>();
+    private final List<Object2LongOpenHashMap<String>> takenBuckets = new ArrayList<>();
+
+    /**
+     * @param numAttributes the number of attributes of all levels, i.e., the upper bound of the attribute indexes
+     */
+    public AttributeGroupIndex(int numAttributes) {
+        this.members = new int[numAttributes];
+        Arrays.fill(this.members, -1);
+        this.extensions.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return an upper bound of the bytes that the slots of a level take in addition to its buckets, assuming that every bucket entry of the level
+     * forms a group of its own; levels of at most 64 attributes need no slots
+     */
+    public static long sizeOfGroups(int numAttributes, long levelSize) {
+        int numWords = CandidateMatrix.numWordsFor(Math.max(1, numAttributes));
+        if (numWords == 1)
+            return 0;
+        return levelSize / MemoryManager.sizeOfEntry("") * ((long) numWords * Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * @return an empty bucket map from the pool, which returns to the pool on {@link #release()}
+     */
+    public Object2LongOpenHashMap<String> takeBucket() {
+        Object2LongOpenHashMap<String> bucket = this.freeBuckets.pollFirst();
+        if (bucket == null)
+            bucket = new Object2LongOpenHashMap<>();
+        this.takenBuckets.add(bucket);
+        return bucket;
+    }
+
+    /**
+     * Indexes the values of the given buckets.
+     *
+     * @param attributes the attributes of the level in ascending order
+     * @param buckets    the buckets of the attributes in the same order
+     */
+    public void load(IntArrayList attributes, List<Object2LongOpenHashMap<String>> buckets) {
+        this.attributes.addAll(attributes);
+        this.buckets.addAll(buckets);
+        this.numWords = CandidateMatrix.numWordsFor(Math.max(1, attributes.size()));
+        for (int member = 0; member < attributes.size(); member++)
+            this.members[attributes.getInt(member)] = member;
+
+        for (int member = 0; member < attributes.size(); member++) {
+            for (String value : buckets.get(member).keySet()) {
+                if (this.numWords == 1)
+                    this.groups.put(value, this.groups.getLong(value) | (1L << member));
+                else
+                    this.groups.put(value, this.extend(this.groups.getLong(value), member));
+            }
+            // The members are added in ascending order, so no value of this pass extends its group by the member again
+            this.extensions.clear();
+        }
+    }
+
+    /**
+     * Moves a value from its group to the group that additionally contains the given member, which the other values of the same group that are
+     * extended by the member share.
+     *
+     * @param group the group of the value or 0 if the value has not been indexed yet
+     * @return the extended group
+     */
+    private long extend(long group, int member) {
+        int slot = this.extensions.get(group);
+        if (slot == -1) {
+            slot = this.newSlot();
+            long firstWord = (long) slot * this.numWords;
+            if (group != 0)
+                System.arraycopy(this.bitmaps, (int) ((group - 1) * this.numWords), this.bitmaps, (int) firstWord, this.numWords);
+            int word = (int) (firstWord + (member >>> 6));
+            this.bitmaps[word] = this.bitmaps[word] | (1L << member);
+            this.extensions.put(group, slot);
+        }
+        this.references[slot]++;
+
+        // A slot that loses its last value was created in an earlier pass, so no extension of this pass refers to it
+        if ((group != 0) && (--this.references[(int) (group - 1)] == 0)) {
+            long firstWord = (group - 1) * this.numWords;
+            Arrays.fill(this.bitmaps, (int) firstWord, (int) (firstWord + this.numWords), 0L);
+            this.freeSlots.add((int) (group - 1));
+        }
+        return slot + 1;
+    }
+
+    /**
+     * Clears the index and returns the taken bucket maps to the pool.
+     */
+    public void release() {
+        for (int attribute : this.attributes)
+            this.members[attribute] = -1;
+        this.attributes.clear();
+        this.buckets.clear();
+        this.groups.clear();
+        Arrays.fill(this.bitmaps, 0, (int) ((long) this.numSlots * this.numWords), 0L);
+        Arrays.fill(this.references, 0, this.numSlots, 0);
+        this.numSlots = 0;
+        this.freeSlots.clear();
+        this.extensions.clear();
+
+        for (Object2LongOpenHashMap<String> bucket : this.takenBuckets) {
+            bucket.clear();
+            this.freeBuckets.addFirst(bucket);
+        }
+        this.takenBuckets.clear();
+    }
+
+    public Object2LongOpenHashMap<String> getBucket(int attribute) {
+        return this.buckets.get(this.members[attribute]);
+    }
+
+    public ObjectSet<String> getValues() {
+        return this.groups.keySet();
+    }
+
+    /**
+     * @return the group of the value, which is 0 if the value is not (or no longer) indexed
+     */
+    public long getGroup(String value) {
+        return this.groups.getLong(value);
+    }
+
+    public void removeGroup(String value) {
+        this.groups.removeLong(value);
+    }
+
+    public boolean contains(long group, int attribute) {
+        int member = this.members[attribute];
+        return (member >= 0) && ((this.getWord(group, member >>> 6) & (1L << member)) != 0);
+    }
+
+    /**
+     * @return the first member of the group that is not smaller than the given member or -1 if there is none
+     */
+    public int nextMember(long group, int fromMember) {
+        for (int word = fromMember >>> 6; word < this.numWords; word++) {
+            long bits = this.getWord(group, word);
+            if (word == fromMember >>> 6)
+                bits = bits & (-1L << fromMember);
+            if (bits != 0)
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+    public int getAttribute(int member) {
+        return this.attributes.getInt(member);
+    }
+
+    private long getWord(long group, int word) {
+        return (this.numWords == 1) ? group : this.bitmaps[(int) ((group - 1) * this.numWords + word)];
+    }
+
+    private int newSlot() {
+        if (!this.freeSlots.isEmpty())
+            return this.freeSlots.popInt();
+
+        long end = (long) (this.numSlots + 1) * this.numWords;
+        if (end > MAX_ARRAY_LENGTH)
+            throw new IllegalStateException("The attribute groups of the level exceed the maximum array length; refine the level into more sub buckets");
+        if (end > this.bitmaps.length)
+            this.bitmaps = Arrays.copyOf(this.bitmaps, (int) Math.min(MAX_ARRAY_LENGTH, Math.max(end, 2L * this.bitmaps.length)));
+        if (this.numSlots + 1 > this.references.length)
+            this.references = Arrays.copyOf(this.references, (int) Math.min(MAX_ARRAY_LENGTH, Math.max(this.numSlots + 1, 2L * this.references.length)));
+        return this.numSlots++;
+    }
+}
@@ -0,0 +1,93 @@
+package binder.structures;
+
+/**
+ * Holds the unary pIND candidates as a dense matrix of dependent and referenced attributes. Every dependent attribute has a row of bits that marks
+ * its remaining referenced attributes, and a parallel array holds the violations that each candidate may still take. A value prunes the row of a
+ * dependent attribute word by word: the violated candidates are the bits of the row outside the group mask of the value, i.e., the referenced
+ * attributes that do not contain the value, so only those candidates are visited.
+ * <p>
+ * The matrix is not thread-safe.
+ */
+public class CandidateMatrix {
+
+    private final int numAttributes;
+    private final int numWords;
+    private final long[] rows;
+    private final int[] rowSizes;
+    private final long[] violationsLeft;
+
+    public CandidateMatrix(int numAttributes) {
+        this.numAttributes = numAttributes;
+        this.numWords = numWordsFor(numAttributes);
+        this.rows = new long[numAttributes * this.numWords];
+        this.rowSizes = new int[numAttributes];
+        this.violationsLeft = new long[numAttributes * numAttributes];
+    }
+
+    /**
+     * @return the number of bytes that a matrix of the given number of attributes occupies
+     */
+    public static long sizeOf(int numAttributes) {
+        return ((long) numAttributes * numWordsFor(numAttributes) + (long) numAttributes * numAttributes) * Long.BYTES + (long) numAttributes * Integer.BYTES;
+    }
+
+    /**
+     * @return the number of long words of a row, which is also the length of the group masks that {@link #prune(int, long[], long)} expects
+     */
+    public static int numWordsFor(int numAttributes) {
+        return (numAttributes + Long.SIZE - 1) >>> 6;
+    }
+
+    public void add(int dependant, int referenced, long violationsLeft) {
+        int word = dependant * this.numWords + (referenced >>> 6);
+        if ((this.rows[word] & (1L << referenced)) == 0)
+            this.rowSizes[dependant]++;
+        this.rows[word] = this.rows[word] | (1L << referenced);
+        this.violationsLeft[dependant * this.numAttributes + referenced] = violationsLeft;
+    }
+
+    public boolean contains(int dependant, int referenced) {
+        return (this.rows[dependant * this.numWords + (referenced >>> 6)] & (1L << referenced)) != 0;
+    }
+
+    public long getViolationsLeft(int dependant, int referenced) {
+        return this.violationsLeft[dependant * this.numAttributes + referenced];
+    }
+
+    public boolean isEmpty(int dependant) {
+        return this.rowSizes[dependant] == 0;
+    }
+
+    /**
+     * Sets the bits of all attributes that the given attribute still references in the given words.
+     */
+    public void addReferencedTo(int dependant, long[] words) {
+        int row = dependant * this.numWords;
+        for (int word = 0; word < this.numWords; word++)
+            words[word] = words[word] | this.rows[row + word];
+    }
+
+    /**
+     * Charges the given violations to all candidates of the dependent attribute whose referenced attribute is not in the group mask and removes the
+     * candidates whose violations are exhausted.
+     *
+     * @param groupMask the bits of all attributes that contain the current value
+     */
+    public void prune(int dependant, long[] groupMask, long violations) {
+        int row = dependant * this.numWords;
+        int firstCandidate = dependant * this.numAttributes;
+        for (int word = 0; word < this.numWords; word++) {
+            long violated = this.rows[row + word] & ~groupMask[word];
+            while (violated != 0) {
+                int referenced = (word << 6) + Long.numberOfTrailingZeros(violated);
+                violated = violated & (violated - 1);
+
+                this.violationsLeft[firstCandidate + referenced] = this.violationsLeft[firstCandidate + referenced] - violations;
+                if (this.violationsLeft[firstCandidate + referenced] < 0L) {
+                    this.rows[row + word] = this.rows[row + word] & ~(1L << referenced);
+                    this.rowSizes[dependant]--;
+                }
+            }
+        }
+    }
+}
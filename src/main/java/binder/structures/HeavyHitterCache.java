@@ -0,0 +1,80 @@
+package binder.structures;
+
+import java.io.IOException;
+
+/**
+ * Counts the most frequent values of a column in a few direct-mapped slots, so that their repeated occurrences bypass the large bucket maps. Each
+ * slot keeps a score that grows with every hit and shrinks with every miss of another value that maps to the slot; only a value whose score has
+ * dropped to zero is evicted, so a heavy hitter keeps its slot against the infrequent values it shares the slot with.
+ * <p>
+ * The counts of a value are handed to the overflow sink when it is evicted and when the cache is flushed. A value may therefore reach the buckets
+ * several times with partial counts, which the buckets sum up.
+ */
+public class HeavyHitterCache {
+
+    @FunctionalInterface
+    public interface Sink {
+        void add(String value, long count) throws IOException;
+    }
+
+    private final String[] values;
+    private final long[] counts;
+    private final int[] scores;
+    private final int mask;
+    private final Sink overflow;
+
+    /**
+     * @param numSlots the number of slots, which is rounded up to a power of two
+     * @param overflow receives the counts of evicted values
+     */
+    public HeavyHitterCache(int numSlots, Sink overflow) {
+        int size = Integer.highestOneBit(Math.max(1, numSlots - 1)) << 1;
+        this.values = new String[size];
+        this.counts = new long[size];
+        this.scores = new int[size];
+        this.mask = size - 1;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Counts one occurrence of the value, which may evict the value that occupied its slot.
+     *
+     * @param hash a well-mixed hash of the value
+     */
+    public void add(String value, long hash) throws IOException {
+        int slot = (int) hash & this.mask;
+        String slotValue = this.values[slot];
+        if (slotValue != null) {
+            if (slotValue.equals(value)) {
+                this.counts[slot]++;
+                if (this.scores[slot] < Integer.MAX_VALUE)
+                    this.scores[slot]++;
+                return;
+            }
+            if (--this.scores[slot] > 0) {
+                this.overflow.add(value, 1L);
+                return;
+            }
+            this.overflow.add(slotValue, this.counts[slot]);
+        }
+        this.values[slot] = value;
+        this.counts[slot] = 1;
+        this.scores[slot] = 1;
+    }
+
+    /**
+     * Hands the counts of all cached values to the overflow sink and empties the cache.
+     */
+    public void flush() throws IOException {
+        for (int slot = 0; slot < this.values.length; slot++) {
+            if (this.values[slot] == null)
+                continue;
+            String value = this.values[slot];
+            long count = this.counts[slot];
+            this.values[slot] = null;
+            this.counts[slot] = 0;
+            this.scores[slot] = 0;
+            this.overflow.add(value, count);
+        }
+    }
+}
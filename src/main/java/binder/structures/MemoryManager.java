@@ -0,0 +1,54 @@
+package binder.structures;
+
+import binder.utils.MeasurementUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts the estimated number of bytes that the in-memory buckets hold against an explicit budget. The bucketizers reserve the size of every new
+ * bucket entry and release the sizes of the buckets they spill or drop, so the spill decision depends only on this bookkeeping and never on the
+ * heap usage that the garbage collector happens to report.
+ * <p>
+ * All methods are thread-safe, so the bucketizer threads of different tables share one budget.
+ */
+public class MemoryManager {
+
+    // Bytes that each bucket entry requires in addition to the value, i.e., its key and count slots in the open hash map at the default load factor
+    private static final int OVERHEAD_PER_ENTRY = 24;
+
+    private final long budget;
+    private final AtomicLong used = new AtomicLong(0);
+
+    public MemoryManager(long budget) {
+        this.budget = budget;
+    }
+
+    public static long sizeOfEntry(String value) {
+        return MeasurementUtils.sizeOf64(value) + OVERHEAD_PER_ENTRY;
+    }
+
+    /**
+     * Reserves the given number of bytes.
+     *
+     * @return true if the reservation exceeds the budget, i.e., the caller should spill
+     */
+    public boolean reserve(long bytes) {
+        return this.used.addAndGet(bytes) > this.budget;
+    }
+
+    public void release(long bytes) {
+        this.used.addAndGet(-bytes);
+    }
+
+    public boolean isExceeded() {
+        return this.used.get() > this.budget;
+    }
+
+    public long getBudget() {
+        return this.budget;
+    }
+
+    public long getUsed() {
+        return this.used.get();
+    }
+}
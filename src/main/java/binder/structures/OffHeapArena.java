@@ -0,0 +1,62 @@
+package binder.structures;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out direct memory in chunks and takes them back when their buckets are released, so that the off-heap memory of one table or spill is
+ * reused by the next one instead of waiting for the garbage collector to free it. Chunk sizes are powers of two between {@link #MIN_CHUNK_SIZE} and
+ * {@link #MAX_CHUNK_SIZE}, so that small buckets do not occupy large chunks; every size has its own pool. Chunks are not zeroed on reuse.
+ * <p>
+ * The arena is thread-safe; the chunks themselves are owned by one bucket at a time.
+ */
+public class OffHeapArena {
+
+    public static final int MIN_CHUNK_SIZE = 1 << 10;
+    public static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private static final int MIN_SIZE_CLASS = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+
+    private final List<Deque<ByteBuffer>> freeChunks;
+
+    public OffHeapArena() {
+        int numSizeClasses = Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) - MIN_SIZE_CLASS + 1;
+        this.freeChunks = new ArrayList<>(numSizeClasses);
+        for (int sizeClass = 0; sizeClass < numSizeClasses; sizeClass++)
+            this.freeChunks.add(new ArrayDeque<>());
+    }
+
+    /**
+     * @return a chunk of at least the given size, rounded up to a power of two; requests larger than {@link #MAX_CHUNK_SIZE} get a dedicated chunk
+     * of exactly their size that is not pooled
+     */
+    public synchronized ByteBuffer allocate(int minSize) {
+        if (minSize > MAX_CHUNK_SIZE)
+            return ByteBuffer.allocateDirect(minSize);
+
+        int size = Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(Math.max(1, minSize - 1)) << 1);
+        ByteBuffer chunk = this.freeChunks.get(sizeClassOf(size)).pollFirst();
+        return (chunk != null) ? chunk.clear() : ByteBuffer.allocateDirect(size);
+    }
+
+    public synchronized void release(ByteBuffer chunk) {
+        int size = chunk.capacity();
+        if ((size <= MAX_CHUNK_SIZE) && (Integer.bitCount(size) == 1) && (size >= MIN_CHUNK_SIZE))
+            this.freeChunks.get(sizeClassOf(size)).addFirst(chunk);
+    }
+
+    /**
+     * Drops all pooled chunks, so that the garbage collector can free their direct memory once the arena is no longer needed.
+     */
+    public synchronized void clear() {
+        for (Deque<ByteBuffer> chunks : this.freeChunks)
+            chunks.clear();
+    }
+
+    private static int sizeClassOf(int size) {
+        return Integer.numberOfTrailingZeros(size) - MIN_SIZE_CLASS;
+    }
+}
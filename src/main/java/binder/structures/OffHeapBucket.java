@@ -0,0 +1,167 @@
+package binder.structures;
+
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bucket that counts its values outside the Java heap. The entries are appended to chunks of an {@link OffHeapArena} as the value count, the
+ * UTF-8 length and the UTF-8 bytes of the value; every chunk is twice as large as the previous one, so that small buckets stay small. An
+ * open-addressing table, which also resides in a chunk of the arena, maps 32 bits of the value's hash and the position of its entry, so that lookups
+ * compare the bytes of an entry only if its hash bits match.
+ * <p>
+ * The bucket is not thread-safe. Its chunks are handed back to the arena by {@link #release()}, after which the bucket is empty and can be reused.
+ */
+public class OffHeapBucket {
+
+    private static final int INITIAL_SLOTS = OffHeapArena.MIN_CHUNK_SIZE / Long.BYTES;
+    private static final int ENTRY_HEADER = Long.BYTES + Integer.BYTES;
+    private static final int OFFSET_BITS = 20; // Enough for the offsets within a chunk of OffHeapArena.MAX_CHUNK_SIZE bytes
+    private static final int MAX_CHUNKS = (1 << (Integer.SIZE - OFFSET_BITS)) - 1; // Keeps the stored entry positions below 2^32 - 1
+
+    private final OffHeapArena arena;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer slots = null; // Allocated with the first entry, because most buckets of a wide table stay small
+    private int mask;
+    private int size = 0;
+
+    public OffHeapBucket(OffHeapArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * Adds the count to the entry of the value, which is created if the value is new.
+     *
+     * @param hash a well-mixed hash of the value
+     * @return the number of bytes that the new entry occupies or 0 if the value was already present
+     */
+    public long addTo(String value, long hash, long count) {
+        if (this.slots == null)
+            this.allocateSlots(INITIAL_SLOTS);
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int tag = (int) hash;
+        int slot = tag & this.mask;
+        for (long entry = this.slots.getLong(slot << 3); entry != 0; entry = this.slots.getLong(slot << 3)) {
+            if ((int) (entry >>> 32) == tag) {
+                ByteBuffer chunk = this.chunks.get(chunkOf(entry));
+                int offset = offsetOf(entry);
+                if (this.matches(chunk, offset, bytes)) {
+                    chunk.putLong(offset, chunk.getLong(offset) + count);
+                    return 0;
+                }
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        long position = this.append(bytes, count);
+        this.slots.putLong(slot << 3, ((long) tag << 32) | (position + 1));
+        this.size++;
+        if (2 * this.size > this.mask + 1)
+            this.allocateSlots(2 * (this.mask + 1));
+        // The table is kept at most half full, i.e., every entry accounts for two slots
+        return ENTRY_HEADER + bytes.length + 2L * Long.BYTES;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Copies the values and their counts onto the heap, e.g., to write them to disk.
+     */
+    public Object2LongOpenHashMap<String> toMap() {
+        Object2LongOpenHashMap<String> values = new Object2LongOpenHashMap<>(this.size);
+        byte[] bytes = new byte[64];
+        for (ByteBuffer chunk : this.chunks) {
+            for (int offset = 0; offset < chunk.position(); ) {
+                long count = chunk.getLong(offset);
+                int length = chunk.getInt(offset + Long.BYTES);
+                if (bytes.length < length)
+                    bytes = new byte[Math.max(length, 2 * bytes.length)];
+                chunk.get(offset + ENTRY_HEADER, bytes, 0, length);
+                values.put(new String(bytes, 0, length, StandardCharsets.UTF_8), count);
+                offset = offset + ENTRY_HEADER + length;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Hands the chunks of the entries back to the arena and empties the bucket.
+     */
+    public void release() {
+        for (ByteBuffer chunk : this.chunks)
+            this.arena.release(chunk);
+        this.chunks.clear();
+        if (this.slots != null)
+            this.arena.release(this.slots);
+        this.slots = null;
+        this.size = 0;
+    }
+
+    private boolean matches(ByteBuffer chunk, int offset, byte[] bytes) {
+        if (chunk.getInt(offset + Long.BYTES) != bytes.length)
+            return false;
+        int start = offset + ENTRY_HEADER;
+        for (int i = 0; i < bytes.length; i++)
+            if (chunk.get(start + i) != bytes[i])
+                return false;
+        return true;
+    }
+
+    // Appends a new entry and returns its position, i.e., the chunk number in the high and the offset in the low bits
+    private long append(byte[] bytes, long count) {
+        int entrySize = ENTRY_HEADER + bytes.length;
+        ByteBuffer chunk = this.chunks.isEmpty() ? null : this.chunks.get(this.chunks.size() - 1);
+        // A dedicated chunk of an oversized value is full with its single entry
+        if ((chunk == null) || (chunk.capacity() > OffHeapArena.MAX_CHUNK_SIZE) || (chunk.remaining() < entrySize)) {
+            if (this.chunks.size() == MAX_CHUNKS)
+                throw new IllegalStateException("An off-heap bucket cannot hold more than " + MAX_CHUNKS + " chunks");
+            int chunkSize = (chunk == null) ? OffHeapArena.MIN_CHUNK_SIZE : Math.min(2 * chunk.capacity(), OffHeapArena.MAX_CHUNK_SIZE);
+            chunk = this.arena.allocate(Math.max(entrySize, chunkSize));
+            this.chunks.add(chunk);
+        }
+        int offset = chunk.position();
+        chunk.putLong(count).putInt(bytes.length).put(bytes);
+        return ((long) (this.chunks.size() - 1) << OFFSET_BITS) | offset;
+    }
+
+    private void allocateSlots(int numSlots) {
+        ByteBuffer oldSlots = this.slots;
+        // Chunks of the arena are not zeroed
+        this.slots = this.arena.allocate(numSlots * Long.BYTES);
+        for (int slot = 0; slot < numSlots; slot++)
+            this.slots.putLong(slot << 3, 0L);
+        this.mask = numSlots - 1;
+        if (oldSlots == null)
+            return;
+
+        // The slots keep their hash bits, so the entries are moved without reading them
+        for (int oldSlot = 0; oldSlot < oldSlots.capacity() >> 3; oldSlot++) {
+            long entry = oldSlots.getLong(oldSlot << 3);
+            if (entry == 0)
+                continue;
+            int slot = (int) (entry >>> 32) & this.mask;
+            while (this.slots.getLong(slot << 3) != 0)
+                slot = (slot + 1) & this.mask;
+            this.slots.putLong(slot << 3, entry);
+        }
+        this.arena.release(oldSlots);
+    }
+
+    private static int chunkOf(long entry) {
+        return (int) (((entry & 0xFFFFFFFFL) - 1) >>> OFFSET_BITS);
+    }
+
+    private static int offsetOf(long entry) {
+        return (int) (((entry & 0xFFFFFFFFL) - 1) & ((1 << OFFSET_BITS) - 1));
+    }
+}
@@ -0,0 +1,87 @@
+package binder.structures;
+
+/**
+ * Hashes the component values of an n-ary tuple into a 128-bit fingerprint without concatenating them. Every component is hashed together with its
+ * length, so that tuples whose concatenations are equal, e.g., ("a#b", "c") and ("a", "b#c"), still get different fingerprints.
+ * <p>
+ * The fingerprint is turned into a key of {@link #KEY_LENGTH} characters with 15 bits each. All key characters lie between 0x0100 and 0x80FF, so
+ * keys contain neither line breaks nor surrogates and are valid values for every bucket file format.
+ * <p>
+ * Instances are not thread-safe; a fingerprint is built by {@link #reset()}, any number of {@link #add(String)} calls and {@link #toKey()}.
+ */
+public class TupleFingerprint {
+
+    public static final int KEY_LENGTH = 9; // 9 * 15 bits cover the 128 bits of the fingerprint
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long MULTIPLIER_1 = 0x87C37B91114253D5L;
+    private static final long MULTIPLIER_2 = 0x4CF5AD432745937FL;
+    private static final char FIRST_KEY_CHAR = 0x0100;
+
+    private long hash1;
+    private long hash2;
+
+    public TupleFingerprint() {
+        this.reset();
+    }
+
+    public void reset() {
+        this.hash1 = SEED_1;
+        this.hash2 = SEED_2;
+    }
+
+    public void add(String value) {
+        long hash1 = this.hash1;
+        long hash2 = this.hash2;
+        int length = value.length();
+
+        // Four characters form one 64 bit block
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = value.charAt(i) | ((long) value.charAt(i + 1) << 16) | ((long) value.charAt(i + 2) << 32) | ((long) value.charAt(i + 3) << 48);
+            hash1 = Long.rotateLeft(hash1 ^ (block * MULTIPLIER_1), 31) * MULTIPLIER_2 + hash2;
+            hash2 = Long.rotateLeft(hash2 ^ (block * MULTIPLIER_2), 33) * MULTIPLIER_1 + hash1;
+        }
+
+        // The at most three remaining characters form the last block
+        long block = 0;
+        for (int shift = 0; i < length; i++, shift += 16)
+            block = block | ((long) value.charAt(i) << shift);
+        hash1 = Long.rotateLeft(hash1 ^ (block * MULTIPLIER_1), 31) * MULTIPLIER_2 + hash2;
+        hash2 = Long.rotateLeft(hash2 ^ (block * MULTIPLIER_2), 33) * MULTIPLIER_1 + hash1;
+
+        // The length separates this component from the next one
+        hash1 = Long.rotateLeft(hash1 ^ (length * MULTIPLIER_2), 27) * MULTIPLIER_1 + hash2;
+        hash2 = Long.rotateLeft(hash2 ^ (length * MULTIPLIER_1), 29) * MULTIPLIER_2 + hash1;
+
+        this.hash1 = hash1;
+        this.hash2 = hash2;
+    }
+
+    public String toKey() {
+        long hash1 = mix(this.hash1 ^ Long.rotateLeft(this.hash2, 17));
+        long hash2 = mix(this.hash2 ^ hash1);
+
+        char[] key = new char[KEY_LENGTH];
+        for (int i = 0; i < 4; i++) {
+            key[i] = (char) (FIRST_KEY_CHAR + (hash1 & 0x7FFF));
+            hash1 >>>= 15;
+        }
+        // 4 bits of the first half are left, which fill the fifth character together with 11 bits of the second half
+        key[4] = (char) (FIRST_KEY_CHAR + (hash1 | ((hash2 & 0x7FF) << 4)));
+        hash2 >>>= 11;
+        for (int i = 5; i < KEY_LENGTH; i++) {
+            key[i] = (char) (FIRST_KEY_CHAR + (hash2 & 0x7FFF));
+            hash2 >>>= 15;
+        }
+        return new String(key);
+    }
+
+    // The finalizer of MurmurHash3, which lets every input bit affect every output bit
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,80 @@
+package binder.structures;
+
+import binder.utils.MeasurementUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps every distinct value of the input to a compact id that is shared by all columns. Buckets, the inverted index of the validation and the n-ary
+ * tuples then store, hash and compare these short ids instead of the raw values.
+ * <p>
+ * An id is a marker character followed by one or two characters outside the surrogate range, so it is a valid value for every bucket file format.
+ * When the dictionary exceeds its memory budget, it stops admitting new values. Values that are not in the dictionary keep their raw form; because
+ * the dictionary never revises the decision it made for a value, every column encodes that value in the same way.
+ */
+public class ValueDictionary {
+
+    private static final char MARKER = '\u0001';
+    private static final char FIRST_ID_CHAR = 0x0100;
+    private static final int ID_CHAR_RANGE = 0xD800 - FIRST_ID_CHAR; // Two id characters cover more ids than an int can count
+
+    // Bytes that each dictionary entry requires in addition to the value, i.e., the id string and the hash map node
+    private static final int OVERHEAD_PER_ENTRY = 64 + 48;
+
+    private final ConcurrentHashMap<String, String> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(0);
+    private final AtomicLong size = new AtomicLong(0);
+    private final long maxSize;
+    private volatile boolean frozen = false;
+
+    public ValueDictionary(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param value a non-null value of any column
+     * @return the id of the value or, if the value was not admitted to the dictionary, the (escaped) raw value
+     */
+    public String encode(String value) {
+        String id = this.ids.get(value);
+        if (id != null)
+            return id;
+
+        // The admission runs atomically per value, so two threads can never take different decisions for the same value
+        id = this.ids.computeIfAbsent(value, this::admit);
+        if (id != null)
+            return id;
+
+        // Raw values must not be mistaken for ids
+        if ((!value.isEmpty()) && (value.charAt(0) == MARKER))
+            return MARKER + value;
+        return value;
+    }
+
+    private String admit(String value) {
+        if (this.frozen)
+            return null;
+
+        int id = this.nextId.getAndIncrement();
+        if ((this.size.addAndGet(MeasurementUtils.sizeOf64(value) + OVERHEAD_PER_ENTRY) > this.maxSize) || (id == Integer.MAX_VALUE - 1))
+            this.frozen = true;
+
+        if (id < ID_CHAR_RANGE)
+            return new String(new char[]{MARKER, (char) (FIRST_ID_CHAR + id)});
+        return new String(new char[]{MARKER, (char) (FIRST_ID_CHAR + id / ID_CHAR_RANGE), (char) (FIRST_ID_CHAR + id % ID_CHAR_RANGE)});
+    }
+
+    public int size() {
+        return this.ids.size();
+    }
+
+    public long getSize() {
+        return this.size.get();
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+}
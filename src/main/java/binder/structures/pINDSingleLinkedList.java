@@ -1,5 +1,7 @@
 package binder.structures;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.BitSet;
 import java.util.Collection;
 
@@ -57,6 +59,28 @@ public class pINDSingleLinkedList {
         }
     }
 
+    /**
+     * Unlinks all elements whose violations are exhausted; concurrent validations only mark such elements by their negative violation counters,
+     * because they must not change the list while other threads iterate it.
+     */
+    public void removeViolated() {
+        this.initialize();
+
+        pINDIterator iterator = new pINDIterator();
+        while (iterator.hasNext())
+            if (iterator.next().violationsLeft < 0L)
+                iterator.remove();
+    }
+
+    /**
+     * @return the first element, from which the list can be walked via {@link pINDElement#next} without an iterator; null if the list is empty
+     */
+    public pINDElement getFirst() {
+        this.initialize();
+
+        return this.first;
+    }
+
     public pINDIterator elementIterator() {
         this.initialize();
 
@@ -65,6 +89,16 @@ public class pINDSingleLinkedList {
 
     public static class pINDElement {
 
+        private static final VarHandle VIOLATIONS_LEFT;
+
+        static {
+            try {
+                VIOLATIONS_LEFT = MethodHandles.lookup().findVarHandle(pINDElement.class, "violationsLeft", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
         public int referenced;
         public long violationsLeft;
         public pINDElement next = null;
@@ -73,6 +107,32 @@ public class pINDSingleLinkedList {
             this.referenced = value;
             this.violationsLeft = violationsLeft;
         }
+
+        /**
+         * Subtracts the given number of violations; only for validations that do not share the candidate with other threads.
+         *
+         * @return the violations that are left afterwards
+         */
+        public long subtractViolations(long violations) {
+            this.violationsLeft = this.violationsLeft - violations;
+            return this.violationsLeft;
+        }
+
+        /**
+         * Atomically subtracts the given number of violations, so that validations of different bucket levels can update the same candidate.
+         *
+         * @return the violations that are left afterwards
+         */
+        public long subtractViolationsAtomically(long violations) {
+            return (long) VIOLATIONS_LEFT.getAndAdd(this, -violations) - violations;
+        }
+
+        /**
+         * @return the violations that are left, including the subtractions of concurrent validations
+         */
+        public long getViolationsLeftAcquire() {
+            return (long) VIOLATIONS_LEFT.getAcquire(this);
+        }
     }
 
     public class pINDIterator {
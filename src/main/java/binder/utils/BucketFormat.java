@@ -0,0 +1,5 @@
+package binder.utils;
+
+public enum BucketFormat {
+    TEXT, BINARY
+}
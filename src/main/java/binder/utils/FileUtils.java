@@ -1,7 +1,10 @@
 package binder.utils;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class FileUtils {
 
@@ -90,6 +93,11 @@ public class FileUtils {
         return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath, append), Charset.forName(FileUtils.CHARSET_NAME)));
     }
 
+    public static FileChannel buildFileChannel(String filePath, boolean append) throws IOException {
+        FileUtils.createFile(filePath, !append);
+        return FileChannel.open(Path.of(filePath), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
     public static void writeToFile(String content, String filePath) throws IOException {
         try (Writer writer = FileUtils.buildFileWriter(filePath, false)) {
             writer.write(content);
@@ -0,0 +1,35 @@
+package binder.utils;
+
+public class HashUtils {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER_1 = 0x87C37B91114253D5L;
+    private static final long MULTIPLIER_2 = 0x4CF5AD432745937FL;
+
+    // A 64 bit hash of the characters of the value, in which every input bit affects all output bits, so that its high and low halves can be used
+    // as independent partitioning keys
+    public static long hash64(String value) {
+        long hash = SEED;
+        int length = value.length();
+
+        // Four characters form one 64 bit block
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = value.charAt(i) | ((long) value.charAt(i + 1) << 16) | ((long) value.charAt(i + 2) << 32) | ((long) value.charAt(i + 3) << 48);
+            hash = Long.rotateLeft(hash ^ (block * MULTIPLIER_1), 31) * MULTIPLIER_2;
+        }
+        long block = 0;
+        for (int shift = 0; i < length; i++, shift += 16)
+            block = block | ((long) value.charAt(i) << shift);
+        hash = Long.rotateLeft(hash ^ (block * MULTIPLIER_1), 31) * MULTIPLIER_2;
+
+        return mix64(hash ^ length);
+    }
+
+    // The finalizer of MurmurHash3
+    public static long mix64(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,5 @@
+package binder.utils;
+
+public enum NaryKeyEncoding {
+    CONCATENATED, FINGERPRINT, VERIFIED_FINGERPRINT
+}
@@ -30,13 +30,32 @@ public class PrintUtils {
                 "tableNames: " + ((binder.tableNames != null) ? CollectionUtils.concat(binder.tableNames, ", ") : "-") + "\r\n\t" +
                 "tableSizes: " + ((binder.tableSizes != null) ? CollectionUtils.concat(LongArrayList.wrap(binder.tableSizes), ", ") : "-") + "\r\n\t" +
                 "numColumns: " + binder.numColumns + " (" + ((binder.spillCounts != null) ? String.valueOf(CollectionUtils.countNotN(binder.spillCounts, 0)) : "-") + " spilled)\r\n\t" +
-                "numBucketsPerColumn: " + binder.numBucketsPerColumn + "\r\n\t" +
+                "numBucketsPerColumn: " + binder.numBucketsPerColumn + (binder.adaptiveBuckets ? " (adaptive)" : "") + "\r\n\t" +
+                "prePartitioning: " + binder.prePartitioning + "\r\n\t" +
                 "bucketComparisonOrder: " + ((binder.bucketComparisonOrder != null) ? CollectionUtils.concat(binder.bucketComparisonOrder, ", ") : "-") + "\r\n\t" +
-                "memoryCheckFrequency: " + binder.memoryCheckFrequency + "\r\n\t" +
                 "maxMemoryUsagePercentage: " + binder.maxMemoryUsagePercentage + "%\r\n\t" +
+                "numBucketizerThreads: " + binder.numBucketizerThreads + "\r\n\t" +
+                "numValidationThreads: " + binder.numValidationThreads + "\r\n\t" +
+                "validationEngine: " + binder.validationEngine + "\r\n\t" +
+                "intraLevelParallelism: " + binder.intraLevelParallelism + "\r\n\t" +
+                "candidateMatrix: " + binder.candidateMatrix + "\r\n\t" +
+                "numRefinementThreads: " + binder.numRefinementThreads + "\r\n\t" +
+                "offHeapBuckets: " + binder.offHeapBuckets + "\r\n\t" +
+                "maxOffHeapMemory: " + ((binder.maxOffHeapMemory > 0) ? binder.maxOffHeapMemory + " MB" : "derived") + "\r\n\t" +
+                "spillPolicy: " + binder.spillPolicy + "\r\n\t" +
+                "heavyHitterSlots: " + binder.heavyHitterSlots + "\r\n\t" +
+                "intraTableParallelism: " + binder.intraTableParallelism + "\r\n\t" +
+                "asyncSpilling: " + binder.asyncSpilling + "\r\n\t" +
+                "dictionaryEncoding: " + binder.dictionaryEncoding + " (at most " + binder.maxDictionaryMemoryPercentage + "% of the memory)\r\n\t" +
+                "bucketFormat: " + binder.bucketFormat + (binder.memoryMappedBuckets ? " (memory-mapped)" : "") + "\r\n\t" +
+                "bucketCompression: " + binder.bucketCompression + "\r\n\t" +
+                "bucketStorage: " + binder.bucketStorage + "\r\n\t" +
+                "spillFolders: " + binder.spillFolders + "\r\n\t" +
+                "columnarCache: " + binder.columnarCache + "\r\n\t" +
+                "naryKeyEncoding: " + binder.naryKeyEncoding + "\r\n\t" +
                 "availableMemory: " + binder.availableMemory + " byte (spilled when exceeding " + binder.maxMemoryUsage + " byte)\r\n\t" +
-                "numBucketsPerColumn: " + binder.numBucketsPerColumn + "\r\n\t" +
-                "memoryCheckFrequency: " + binder.memoryCheckFrequency + "\r\n\t" +
+                "numBucketsPerColumn: " + binder.numBucketsPerColumn + (binder.adaptiveBuckets ? " (adaptive)" : "") + "\r\n\t" +
+                "prePartitioning: " + binder.prePartitioning + "\r\n\t" +
                 "cleanTemp: " + binder.cleanTemp + "\r\n\t" +
                 "detectNary: " + binder.detectNary + "\r\n\t" +
                 "numUnaryINDs: " + binder.numUnaryINDs + "\r\n\t" +
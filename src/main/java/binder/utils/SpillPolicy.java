@@ -0,0 +1,5 @@
+package binder.utils;
+
+public enum SpillPolicy {
+    COLUMNS, BUCKETS
+}
@@ -0,0 +1,5 @@
+package binder.utils;
+
+public enum ValidationEngine {
+    INVERTED_INDEX, SORT_MERGE
+}
@@ -0,0 +1,114 @@
+package binder.core;
+
+import binder.structures.MemoryManager;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BucketizerTest {
+
+    private static final int NUM_BUCKETS_PER_COLUMN = 32;
+    // Small enough that the large tables spill several times, also while the small tables are bucketized next to them
+    private static final long BUCKET_MEMORY = 64 * 1024;
+
+    @TempDir
+    Path tempFolder;
+
+    @Test
+    void parallelTablesKeepTheSerialComparisonOrderWhenSpilling() throws Exception {
+        int[] serialOrder = unaryBucketize(1, "serial");
+        for (int run = 0; run < 5; run++)
+            assertArrayEquals(serialOrder, unaryBucketize(4, "parallel" + run));
+    }
+
+    private int[] unaryBucketize(int numBucketizerThreads, String folder) throws Exception {
+        PartialBinder binder = new PartialBinder();
+        binder.setRelationalInputConfigurationValue(PartialBinder.Identifier.INPUT_FILES.name(),
+                new TableGenerator("large1", 20000, row -> List.of("a" + row, "b" + (row % 5000))),
+                new TableGenerator("small", 7, row -> List.of("c" + row)),
+                new TableGenerator("medium", 100, row -> List.of("d" + row, "e" + (row % 3))),
+                new TableGenerator("large2", 20000, row -> List.of("f" + row)));
+        binder.tempFolderPath = this.tempFolder.resolve(folder).toString();
+        binder.numBucketsPerColumn = NUM_BUCKETS_PER_COLUMN;
+        binder.numBucketizerThreads = numBucketizerThreads;
+        binder.detectNary = false;
+        binder.tableSizes = new long[binder.tableNames.length];
+
+        Initializer.initialize(binder);
+        binder.memoryManager = new MemoryManager(BUCKET_MEMORY);
+        try {
+            Bucketizer.unaryBucketize(binder);
+        } finally {
+            binder.bucketStore.close();
+        }
+
+        assertTrue(Arrays.stream(binder.spillCounts).anyMatch(spillCount -> spillCount > 0));
+        return binder.bucketComparisonOrder;
+    }
+
+    private static class TableGenerator implements RelationalInputGenerator {
+
+        private final String name;
+        private final int numRows;
+        private final IntFunction<List<String>> rows;
+
+        TableGenerator(String name, int numRows, IntFunction<List<String>> rows) {
+            this.name = name;
+            this.numRows = numRows;
+            this.rows = rows;
+        }
+
+        @Override
+        public RelationalInput generateNewCopy() {
+            return new RelationalInput() {
+                private int row = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return this.row < TableGenerator.this.numRows;
+                }
+
+                @Override
+                public List<String> next() {
+                    return new ArrayList<>(TableGenerator.this.rows.apply(this.row++));
+                }
+
+                @Override
+                public int numberOfColumns() {
+                    return this.columnNames().size();
+                }
+
+                @Override
+                public String relationName() {
+                    return TableGenerator.this.name;
+                }
+
+                @Override
+                public List<String> columnNames() {
+                    List<String> columnNames = new ArrayList<>();
+                    for (int column = 0; column < TableGenerator.this.rows.apply(0).size(); column++)
+                        columnNames.add("column" + column);
+                    return columnNames;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
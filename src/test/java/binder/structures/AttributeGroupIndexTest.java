@@ -0,0 +1,75 @@
+package binder.structures;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttributeGroupIndexTest {
+
+    private static final int NUM_ATTRIBUTES = 150;
+    private static final int NUM_VALUES = 1000;
+
+    @Test
+    void levelsOfMoreThan64AttributesShareTheSlotsOfEqualGroups() {
+        AttributeGroupIndex index = new AttributeGroupIndex(NUM_ATTRIBUTES);
+
+        // Load a level of all attributes, release it and load a level of every other attribute into the same index
+        IntArrayList attributes = new IntArrayList();
+        for (int attribute = 0; attribute < NUM_ATTRIBUTES; attribute++)
+            attributes.add(attribute);
+        loadAndCheck(index, attributes);
+        index.release();
+
+        IntArrayList evenAttributes = new IntArrayList();
+        for (int attribute = 0; attribute < NUM_ATTRIBUTES; attribute += 2)
+            evenAttributes.add(attribute);
+        loadAndCheck(index, evenAttributes);
+    }
+
+    private static void loadAndCheck(AttributeGroupIndex index, IntArrayList attributes) {
+        List<Object2LongOpenHashMap<String>> buckets = new ArrayList<>(attributes.size());
+        for (int attribute : attributes) {
+            Object2LongOpenHashMap<String> bucket = index.takeBucket();
+            for (int value = 0; value < NUM_VALUES; value++)
+                if (contains(attribute, value))
+                    bucket.put("v" + value, 1L);
+            buckets.add(bucket);
+        }
+        index.load(attributes, buckets);
+
+        Map<IntArrayList, Long> groups = new HashMap<>();
+        for (int value = 0; value < NUM_VALUES; value++) {
+            long group = index.getGroup("v" + value);
+
+            IntArrayList expectedMembers = new IntArrayList();
+            for (int member = 0; member < attributes.size(); member++) {
+                assertEquals(contains(attributes.getInt(member), value), index.contains(group, attributes.getInt(member)));
+                if (contains(attributes.getInt(member), value))
+                    expectedMembers.add(member);
+            }
+            IntArrayList members = new IntArrayList();
+            for (int member = index.nextMember(group, 0); member != -1; member = index.nextMember(group, member + 1))
+                members.add(member);
+            assertEquals(expectedMembers, members);
+
+            // Values with the same members have the same group
+            if (!members.isEmpty()) {
+                long sharedGroup = groups.computeIfAbsent(members, key -> group);
+                assertEquals(sharedGroup, group);
+            }
+        }
+        assertTrue(groups.size() < NUM_VALUES);
+    }
+
+    private static boolean contains(int attribute, int value) {
+        return (attribute % 7 == value % 7) || (attribute == value % NUM_ATTRIBUTES);
+    }
+}